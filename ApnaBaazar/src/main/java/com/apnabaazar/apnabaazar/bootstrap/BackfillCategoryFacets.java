@@ -0,0 +1,29 @@
+package com.apnabaazar.apnabaazar.bootstrap;
+
+import com.apnabaazar.apnabaazar.service.CategoryFacetService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.stereotype.Component;
+
+/**
+ * Queues seeding of the facet table for categories that have no facet yet, so the first filter request per category does not
+ * pay for the aggregation. Existing facets are left alone; they are kept current by product changes and the
+ * periodic refresh in {@link CategoryFacetService#refreshStale()}.
+ */
+@Component
+@RequiredArgsConstructor
+public class BackfillCategoryFacets implements CommandLineRunner {
+
+    private final CategoryFacetService categoryFacetService;
+
+    @Value("${apnabaazar.backfill.category-facets:true}")
+    private boolean enabled;
+
+    @Override
+    public void run(String... args) {
+        if (!enabled)
+            return;
+        categoryFacetService.seedMissing();
+    }
+}
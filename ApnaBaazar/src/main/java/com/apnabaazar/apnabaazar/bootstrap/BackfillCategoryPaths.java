@@ -0,0 +1,36 @@
+package com.apnabaazar.apnabaazar.bootstrap;
+
+import com.apnabaazar.apnabaazar.service.CategoryService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.stereotype.Component;
+
+/**
+ * Fills the materialized path of categories created before the column existed. Only rows with no path are
+ * touched, so the runner is a no-op once every category has one.
+ * Customer listings match products by the stored path of their category, so startup fails while any category
+ * is still without one rather than silently dropping its products from listings.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class BackfillCategoryPaths implements CommandLineRunner {
+
+    private final CategoryService categoryService;
+
+    @Value("${apnabaazar.backfill.category-paths:true}")
+    private boolean enabled;
+
+    @Override
+    public void run(String... args) {
+        if (enabled) {
+            int filled = categoryService.backfillPaths();
+            if (filled > 0)
+                log.info("Backfilled materialized paths for {} categories", filled);
+        }
+        if (categoryService.hasCategoriesWithoutPath())
+            throw new IllegalStateException("Some categories have no materialized path; enable apnabaazar.backfill.category-paths");
+    }
+}
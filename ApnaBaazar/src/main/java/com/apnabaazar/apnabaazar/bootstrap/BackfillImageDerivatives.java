@@ -0,0 +1,64 @@
+package com.apnabaazar.apnabaazar.bootstrap;
+
+import com.apnabaazar.apnabaazar.model.products.ProductVariation;
+import com.apnabaazar.apnabaazar.repository.ProductVariationRepository;
+import com.apnabaazar.apnabaazar.service.ImageDerivativeService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Opt-in generation of image derivatives for images that have none recorded, such as images uploaded before the
+ * derivative pipeline existed or whose task was rejected. Until then those images are served at their original URL.
+ * Runs after the secondary image key backfill so it can see every stored key.
+ */
+@Slf4j
+@Component
+@Order(Ordered.LOWEST_PRECEDENCE)
+@RequiredArgsConstructor
+public class BackfillImageDerivatives implements CommandLineRunner {
+
+    private static final int BATCH_SIZE = 100;
+
+    private final ProductVariationRepository productVariationRepository;
+    private final ImageDerivativeService imageDerivativeService;
+
+    @Value("${apnabaazar.backfill.image-derivatives:false}")
+    private boolean enabled;
+
+    @Override
+    @Transactional
+    public void run(String... args) {
+        if (!enabled)
+            return;
+        long images = 0;
+        Page<ProductVariation> page;
+        int pageNumber = 0;
+        do {
+            page = productVariationRepository.findAll(PageRequest.of(pageNumber++, BATCH_SIZE, Sort.by("productVariationId")));
+            for (ProductVariation variation : page) {
+                List<String> keys = new ArrayList<>(variation.getSecondaryImageKeys());
+                if (variation.getPrimaryImageName() != null && !variation.getPrimaryImageName().isEmpty())
+                    keys.add(variation.getPrimaryImageName());
+                for (String key : keys) {
+                    if (variation.getDerivedImageKeys().contains(key))
+                        continue;
+                    if (imageDerivativeService.generateDerivatives(variation.getProductVariationId(), key))
+                        images++;
+                }
+            }
+        } while (page.hasNext());
+        log.info("Generated image derivatives for {} images", images);
+    }
+}
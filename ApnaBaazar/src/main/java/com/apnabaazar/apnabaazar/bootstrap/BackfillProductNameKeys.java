@@ -0,0 +1,58 @@
+package com.apnabaazar.apnabaazar.bootstrap;
+
+import com.apnabaazar.apnabaazar.model.products.Product;
+import com.apnabaazar.apnabaazar.repository.ProductRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Fills the unique name key of products created before it existed. Products that already collide with another
+ * product of the same seller, category and brand keep a null key and are logged for manual cleanup.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class BackfillProductNameKeys implements CommandLineRunner {
+
+    private static final int BATCH_SIZE = 100;
+
+    private final ProductRepository productRepository;
+
+    @Value("${apnabaazar.backfill.product-name-keys:true}")
+    private boolean enabled;
+
+    @Override
+    public void run(String... args) {
+        if (!enabled)
+            return;
+        long filled = 0;
+        try {
+            String lastId = "";
+            List<Product> batch;
+            // Colliding products stay null, so page by id instead of re-reading the first page
+            while (!(batch = productRepository.findByNameKeyIsNullAndIdGreaterThanOrderByIdAsc(lastId, PageRequest.of(0, BATCH_SIZE))).isEmpty()) {
+                for (Product product : batch) {
+                    product.setNameKey(Product.computeNameKey(product.getBrand(), product.getName()));
+                    try {
+                        productRepository.saveAndFlush(product);
+                        filled++;
+                    } catch (DataIntegrityViolationException e) {
+                        log.warn("Product {} duplicates another product's name and brand; name key left empty", product.getId());
+                    }
+                }
+                lastId = batch.get(batch.size() - 1).getId();
+            }
+            if (filled > 0)
+                log.info("Backfilled name keys for {} products", filled);
+        } catch (Exception e) {
+            log.error("Failed to backfill product name keys after {} products: {}", filled, e.getMessage(), e);
+        }
+    }
+}
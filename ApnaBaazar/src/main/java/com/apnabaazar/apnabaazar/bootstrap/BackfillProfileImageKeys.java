@@ -0,0 +1,57 @@
+package com.apnabaazar.apnabaazar.bootstrap;
+
+import com.apnabaazar.apnabaazar.model.users.User;
+import com.apnabaazar.apnabaazar.repository.UserRepository;
+import com.apnabaazar.apnabaazar.service.UserService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Backfills profile image keys for images uploaded before the key was stored on the user. Each user is probed once
+ * and then flagged, so the runner is a no-op once every existing user has been handled. Users not reached yet are
+ * probed on first read by UserService.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class BackfillProfileImageKeys implements CommandLineRunner {
+
+    private static final int BATCH_SIZE = 100;
+
+    private final UserRepository userRepository;
+    private final UserService userService;
+
+    @Value("${apnabaazar.backfill.profile-images:true}")
+    private boolean enabled;
+
+    @Override
+    public void run(String... args) {
+        if (!enabled)
+            return;
+        long probed = 0;
+        long found = 0;
+        try {
+            String lastId = "";
+            List<User> batch;
+            while (!(batch = userRepository.findByProfileImageProbedFalseAndIdGreaterThanOrderByIdAsc(lastId, PageRequest.of(0, BATCH_SIZE))).isEmpty()) {
+                for (User user : batch) {
+                    userService.resolveLegacyProfileImage(user);
+                    probed++;
+                    if (user.getProfileImageKey() != null)
+                        found++;
+                }
+                lastId = batch.get(batch.size() - 1).getId();
+            }
+            if (probed > 0)
+                log.info("Probed {} users for legacy profile images, found {}", probed, found);
+        } catch (Exception e) {
+            log.error("Failed to backfill profile image keys after {} users: {}", probed, e.getMessage(), e);
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.apnabaazar.apnabaazar.bootstrap;
+
+import com.apnabaazar.apnabaazar.model.products.ProductVariation;
+import com.apnabaazar.apnabaazar.repository.ProductVariationRepository;
+import com.apnabaazar.apnabaazar.service.ProductVariationService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * One-time backfill of secondary image keys for variations created before the keys were stored.
+ * Each variation is listed in S3 once and then marked as indexed, so later startups find nothing to do.
+ */
+@Slf4j
+@Component
+@Order(Ordered.LOWEST_PRECEDENCE - 1)
+@RequiredArgsConstructor
+public class BackfillSecondaryImageKeys implements CommandLineRunner {
+
+    private static final int BATCH_SIZE = 100;
+
+    private final ProductVariationRepository productVariationRepository;
+    private final ProductVariationService productVariationService;
+
+    @Value("${apnabaazar.backfill.secondary-images:true}")
+    private boolean enabled;
+
+    @Override
+    public void run(String... args) {
+        if (!enabled)
+            return;
+        long indexed = 0;
+        try {
+            List<ProductVariation> batch;
+            // Indexed variations drop out of the query, so the first page is always the next batch
+            while (!(batch = productVariationRepository.findBySecondaryImagesIndexedFalse(PageRequest.of(0, BATCH_SIZE))).isEmpty()) {
+                for (ProductVariation variation : batch) {
+                    productVariationService.indexSecondaryImages(variation);
+                    indexed++;
+                }
+            }
+            if (indexed > 0)
+                log.info("Backfilled secondary image keys for {} product variations", indexed);
+        } catch (Exception e) {
+            log.error("Failed to backfill secondary image keys after {} variations: {}", indexed, e.getMessage(), e);
+        }
+    }
+}
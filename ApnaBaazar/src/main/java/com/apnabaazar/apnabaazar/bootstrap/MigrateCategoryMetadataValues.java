@@ -0,0 +1,42 @@
+package com.apnabaazar.apnabaazar.bootstrap;
+
+import com.apnabaazar.apnabaazar.model.categories.CategoryMetadataFieldValues;
+import com.apnabaazar.apnabaazar.service.CategoryMetadataService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.stereotype.Component;
+
+/**
+ * Moves comma-joined category metadata values into the one-row-per-value table. Migrated rows have an empty
+ * CSV column, so the runner is a no-op once everything has moved.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class MigrateCategoryMetadataValues implements CommandLineRunner {
+
+    private final CategoryMetadataService categoryMetadataService;
+
+    @Value("${apnabaazar.backfill.category-metadata-values:true}")
+    private boolean enabled;
+
+    @Override
+    public void run(String... args) {
+        if (!enabled)
+            return;
+        int migrated = 0;
+        for (CategoryMetadataFieldValues fieldValues : categoryMetadataService.findUnmigrated()) {
+            try {
+                if (categoryMetadataService.migrateLegacyValues(fieldValues))
+                    migrated++;
+            } catch (Exception e) {
+                log.error("Failed to migrate metadata values of category {} field {}: {}",
+                        fieldValues.getId().getCategoryId(), fieldValues.getId().getCategoryMetadataFieldId(), e.getMessage(), e);
+            }
+        }
+        if (migrated > 0)
+            log.info("Migrated metadata values for {} category fields", migrated);
+    }
+}
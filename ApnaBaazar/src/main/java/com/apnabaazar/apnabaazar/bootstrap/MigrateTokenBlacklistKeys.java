@@ -0,0 +1,26 @@
+package com.apnabaazar.apnabaazar.bootstrap;
+
+import com.apnabaazar.apnabaazar.service.TokenBlacklistService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.stereotype.Component;
+
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class MigrateTokenBlacklistKeys implements CommandLineRunner {
+
+    private final TokenBlacklistService tokenBlacklistService;
+
+    @Override
+    public void run(String... args) {
+        try {
+            long migrated = tokenBlacklistService.migrateLegacyKeys();
+            if (migrated > 0)
+                log.info("Migrated {} token blacklist keys to digest keys", migrated);
+        } catch (Exception e) {
+            log.error("Failed to migrate token blacklist keys: {}", e.getMessage(), e);
+        }
+    }
+}
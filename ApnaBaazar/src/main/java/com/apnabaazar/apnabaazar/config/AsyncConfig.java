@@ -0,0 +1,88 @@
+package com.apnabaazar.apnabaazar.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+@Configuration
+public class AsyncConfig {
+
+    @Value("${email.outbox.pool-size:2}")
+    private int mailPoolSize;
+
+    @Value("${email.outbox.queue-capacity:10}")
+    private int mailQueueCapacity;
+
+    @Value("${aws.s3.derivatives.pool-size:2}")
+    private int imagePoolSize;
+
+    @Value("${aws.s3.derivatives.queue-capacity:100}")
+    private int imageQueueCapacity;
+
+    @Value("${apnabaazar.listing.count.pool-size:1}")
+    private int countPoolSize;
+
+    @Value("${apnabaazar.listing.count.queue-capacity:50}")
+    private int countQueueCapacity;
+
+    @Value("${apnabaazar.category-facets.queue-capacity:1000}")
+    private int facetQueueCapacity;
+
+    /**
+     * Bounded pool that drains the email outbox; when it is saturated the dispatcher leaves rows for a later run
+     * instead of queueing without limit.
+     */
+    @Bean
+    public ThreadPoolTaskExecutor mailExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(mailPoolSize);
+        executor.setMaxPoolSize(mailPoolSize);
+        executor.setQueueCapacity(mailQueueCapacity);
+        executor.setThreadNamePrefix("mail-");
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+        return executor;
+    }
+
+    /**
+     * Bounded pool for image derivative generation. Decoded images are large, so the pool size caps the heap
+     * the pipeline can use; work beyond the queue is dropped and can be regenerated by the backfill.
+     */
+    @Bean
+    public ThreadPoolTaskExecutor imageExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(imagePoolSize);
+        executor.setMaxPoolSize(imagePoolSize);
+        executor.setQueueCapacity(imageQueueCapacity);
+        executor.setThreadNamePrefix("image-");
+        return executor;
+    }
+
+    /**
+     * Small pool for background refreshes of cached listing totals; one count at a time keeps them off the
+     * request path without competing with it for connections.
+     */
+    @Bean
+    public ThreadPoolTaskExecutor countExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(countPoolSize);
+        executor.setMaxPoolSize(countPoolSize);
+        executor.setQueueCapacity(countQueueCapacity);
+        executor.setThreadNamePrefix("count-");
+        return executor;
+    }
+
+    /**
+     * Single thread for category facet recomputation, so updates to a shared ancestor never race each other.
+     */
+    @Bean
+    public ThreadPoolTaskExecutor facetExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(1);
+        executor.setMaxPoolSize(1);
+        executor.setQueueCapacity(facetQueueCapacity);
+        executor.setThreadNamePrefix("facet-");
+        return executor;
+    }
+}
@@ -1,5 +1,6 @@
 package com.apnabaazar.apnabaazar.config;
 
+import com.apnabaazar.apnabaazar.model.token.VerifiedToken;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.AuditorAware;
 import org.springframework.security.authentication.AnonymousAuthenticationToken;
@@ -22,6 +23,11 @@ public class AuditorAwareImpl implements AuditorAware<String> {
         }
         log.info("AuditorAware: Current user is {}", authentication.getName());
 
+        // Prefer the subject JwtFilter already verified for this request
+        VerifiedToken verifiedToken = VerifiedToken.current();
+        if (verifiedToken != null)
+            return Optional.ofNullable(verifiedToken.getClaims().getSubject());
+
         UserPrincipal userPrincipal = (UserPrincipal) authentication.getPrincipal();
         return Optional.ofNullable(userPrincipal.getUsername());
     }
@@ -1,37 +1,73 @@
 package com.apnabaazar.apnabaazar.config;
 
 import com.apnabaazar.apnabaazar.model.users.User;
+import lombok.Getter;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 
+import java.time.LocalDateTime;
 import java.util.Collection;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Objects;
 
+/**
+ * Immutable snapshot of the security-relevant state of a {@link User}. It holds no reference to the
+ * entity, so it can be cached across requests without dragging a detached persistence graph along.
+ */
+@Getter
 public class UserPrincipal implements UserDetails {
 
-    private final User user;
+    private final String id;
+    private final String email;
+    private final String password;
+    private final List<SimpleGrantedAuthority> authorities;
+    private final boolean locked;
+    private final boolean active;
+    private final LocalDateTime passwordUpdateDate;
 
     public UserPrincipal(User user) {
-        this.user = user;
+        this.id = user.getId();
+        this.email = user.getEmail();
+        this.password = user.getPassword();
+        this.authorities = user.getRoles().stream()
+                .map(role -> new SimpleGrantedAuthority(role.getAuthority()))
+                .toList();
+        this.locked = user.isLocked();
+        this.active = user.isActive();
+        this.passwordUpdateDate = user.getPasswordUpdateDate();
+    }
+
+    /**
+     * Principal rebuilt from the claims of a stateless access token. Only the username and authorities are known;
+     * the token is trusted not to belong to a locked account because locking bumps the security version it carries.
+     */
+    public UserPrincipal(String email, List<String> roles) {
+        this.id = null;
+        this.email = email;
+        this.password = null;
+        this.authorities = roles.stream()
+                .filter(Objects::nonNull)
+                .map(SimpleGrantedAuthority::new)
+                .toList();
+        this.locked = false;
+        this.active = true;
+        this.passwordUpdateDate = null;
     }
 
 
     public Collection<? extends GrantedAuthority> getAuthorities() {
-        return user.getRoles().stream()
-                .map(role -> new SimpleGrantedAuthority(role.getAuthority()))
-                .collect(Collectors.toList());
+        return authorities;
     }
 
     @Override
     public String getPassword() {
-        return  user.getPassword();
+        return  password;
     }
 
     @Override
     public String getUsername() {
-        return user.getEmail();
+        return email;
     }
 
     @Override
@@ -41,7 +77,7 @@ public class UserPrincipal implements UserDetails {
 
     @Override
     public boolean isAccountNonLocked() {
-        return user.isLocked();
+        return locked;
     }
 
     @Override
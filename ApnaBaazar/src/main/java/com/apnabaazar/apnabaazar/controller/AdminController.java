@@ -31,6 +31,8 @@ import java.util.Map;
 @RequestMapping("/admin")
 public class AdminController {
 
+    private static final String TOTAL_COUNT_HEADER = "X-Total-Count";
+
     private final AdminService adminService;
     private final MessageSource messageSource;
     private Locale locale;
@@ -71,9 +73,11 @@ public class AdminController {
             @RequestParam(defaultValue = "10") int pageSize,
             @RequestParam(defaultValue = "0") int pageOffset,
             @RequestParam(defaultValue = "createdAt") String sort,
-            @RequestParam(required = false) String email
+            @RequestParam(required = false) String email,
+            @RequestParam(defaultValue = "false") boolean includeTotal
     ) {
-        return ResponseEntity.ok(adminService.getCustomers(pageSize, pageOffset, sort,email));
+        List<CustomerResponseDTO> customers = adminService.getCustomers(pageSize, pageOffset, sort, email);
+        return includeTotal ? withTotal(customers, adminService.countCustomers(email)) : ResponseEntity.ok(customers);
     }
 
     @GetMapping("/sellers")
@@ -81,9 +85,11 @@ public class AdminController {
             @RequestParam(defaultValue = "10") int pageSize,
             @RequestParam(defaultValue = "0") int pageOffset,
             @RequestParam(defaultValue = "createdAt") String sort,
-            @RequestParam(required = false) String email
+            @RequestParam(required = false) String email,
+            @RequestParam(defaultValue = "false") boolean includeTotal
     ) {
-        return ResponseEntity.ok(adminService.getSellers(pageSize, pageOffset, sort,email));
+        List<SellerResponseDTO> sellers = adminService.getSellers(pageSize, pageOffset, sort, email);
+        return includeTotal ? withTotal(sellers, adminService.countSellers(email)) : ResponseEntity.ok(sellers);
     }
 
     @PutMapping("/unlock/{userId}")
@@ -127,10 +133,11 @@ public class AdminController {
             @RequestParam(required = false, defaultValue = "0") int offset,
             @RequestParam(required = false, defaultValue = "name") String sort,
             @RequestParam(required = false, defaultValue = "asc") String order,
-            @RequestParam(required = false) String query
-
+            @RequestParam(required = false) String query,
+            @RequestParam(defaultValue = "false") boolean includeTotal
     ) {
-        return ResponseEntity.ok(adminService.getAllMetadataFields(max, offset, sort, order, query));
+        List<MetadataFieldDTO> fields = adminService.getAllMetadataFields(max, offset, sort, order, query);
+        return includeTotal ? withTotal(fields, adminService.countMetadataFields(query)) : ResponseEntity.ok(fields);
     }
 
     @PostMapping("/category")
@@ -150,9 +157,11 @@ public class AdminController {
             @RequestParam(required = false, defaultValue = "0") int offset,
             @RequestParam(required = false, defaultValue = "name") String sort,
             @RequestParam(required = false, defaultValue = "asc") String order,
-            @RequestParam(required = false) String query
+            @RequestParam(required = false) String query,
+            @RequestParam(defaultValue = "false") boolean includeTotal
     ) {
-        return ResponseEntity.ok(adminService.getAllCategories(max, offset, sort, order, query));
+        List<CategoryResponseDTO> categories = adminService.getAllCategories(max, offset, sort, order, query);
+        return includeTotal ? withTotal(categories, adminService.countCategories(query)) : ResponseEntity.ok(categories);
     }
 
     @PutMapping("/category")
@@ -203,5 +212,10 @@ public class AdminController {
         return ResponseEntity.ok(adminService.searchProducts(filters, page, size, sort, direction, userPrincipal));
     }
 
-
+    // Listings are count-free; the total is only computed (and cached) when the client asks for it
+    private <T> ResponseEntity<List<T>> withTotal(List<T> body, long total) {
+        return ResponseEntity.ok()
+                .header(TOTAL_COUNT_HEADER, String.valueOf(total))
+                .body(body);
+    }
 }
@@ -8,12 +8,13 @@ import com.apnabaazar.apnabaazar.model.dto.UpdatePasswordDTO;
 import com.apnabaazar.apnabaazar.model.dto.category_dto.CategoryFilterDetailsDTO;
 import com.apnabaazar.apnabaazar.model.dto.category_dto.CustomerCategoryResponseDTO;
 import com.apnabaazar.apnabaazar.model.dto.customer_dto.CustomerProfileDTO;
+import com.apnabaazar.apnabaazar.model.dto.product_dto.ProductCursorPageDTO;
 import com.apnabaazar.apnabaazar.model.dto.product_dto.ProductDTO;
 import com.apnabaazar.apnabaazar.model.dto.product_dto.ProductResponseDTO;
 import com.apnabaazar.apnabaazar.model.dto.seller_dto.ProfileUpdateDTO;
 import com.apnabaazar.apnabaazar.service.AuthService;
 import com.apnabaazar.apnabaazar.service.CustomerService;
-import com.apnabaazar.apnabaazar.service.S3Service;
+import com.apnabaazar.apnabaazar.service.UserService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.context.MessageSource;
@@ -35,8 +36,10 @@ import java.util.Map;
 @RequestMapping("/customer")
 public class CustomerController {
 
+    private static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
     private final CustomerService customerService;
-    private final S3Service s3Service;
+    private final UserService userService;
     private final MessageSource messageSource;
     private final AuthService authService;
     private Locale locale;
@@ -75,7 +78,7 @@ public class CustomerController {
 
     @PostMapping("/upload/profile-image")
     public ResponseEntity<GenericResponseDTO> uploadCustomerProfileImage(@RequestParam MultipartFile file, @AuthenticationPrincipal UserPrincipal userPrincipal) throws IOException {
-        String key = s3Service.uploadProfileImage(userPrincipal.getUsername(), file);
+        String key = userService.uploadProfileImage(userPrincipal.getUsername(), file);
         return ResponseEntity.ok(new GenericResponseDTO(true, messageSource.getMessage("image.uploaded", new Object[]{key},locale) + key));
 
     }
@@ -83,7 +86,7 @@ public class CustomerController {
     @DeleteMapping("/profile/image")
     public ResponseEntity<GenericResponseDTO> deleteCustomerProfileImage(@AuthenticationPrincipal UserPrincipal userPrincipal) {
         String username = userPrincipal.getUsername();
-        boolean deleted = s3Service.deleteProfileImage(username);
+        boolean deleted = userService.deleteProfileImage(username);
         String messageKey = deleted ? "image.deleted" : "image.not-found";
         String message = messageSource.getMessage(messageKey, null, locale);
         return ResponseEntity.ok(new GenericResponseDTO(true, message));
@@ -131,8 +134,12 @@ public class CustomerController {
             @RequestParam(defaultValue = "10") int size,
             @RequestParam(defaultValue = "name") String sort,
             @RequestParam(defaultValue = "asc") String direction,
+            @RequestParam(required = false) String cursor,
             @AuthenticationPrincipal UserPrincipal userPrincipal) {
 
+        // Passing a cursor (empty for the first page) switches to keyset paging; page/size stays as offset mode
+        if (cursor != null)
+            return cursorResponse(customerService.getAllProducts(categoryId, filters, cursor, size, sort, direction));
         return ResponseEntity.ok(customerService.getAllProducts(categoryId, filters, page, size, sort, direction, userPrincipal));
     }
 
@@ -142,8 +149,11 @@ public class CustomerController {
             @RequestParam(defaultValue = "10") int max,
             @RequestParam(defaultValue = "0") int offset,
             @RequestParam(defaultValue = "name") String sort,
-            @RequestParam(defaultValue = "asc") String order) {
+            @RequestParam(defaultValue = "asc") String order,
+            @RequestParam(required = false) String cursor) {
 
+        if (cursor != null)
+            return cursorResponse(customerService.getSimilarProducts(productId, cursor, max, sort, order));
         int page = offset / max;
         List<ProductResponseDTO> similarProducts = customerService.getSimilarProducts(
                 productId, page, max, sort, order);
@@ -151,4 +161,11 @@ public class CustomerController {
         return ResponseEntity.ok(similarProducts);
     }
 
+    private ResponseEntity<List<ProductResponseDTO>> cursorResponse(ProductCursorPageDTO page) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.getNextCursor() != null)
+            response.header(NEXT_CURSOR_HEADER, page.getNextCursor());
+        return response.body(page.getProducts());
+    }
+
 }
@@ -9,8 +9,8 @@ import com.apnabaazar.apnabaazar.model.dto.product_dto.*;
 import com.apnabaazar.apnabaazar.model.dto.seller_dto.SellerProfileDTO;
 import com.apnabaazar.apnabaazar.model.dto.seller_dto.ProfileUpdateDTO;
 import com.apnabaazar.apnabaazar.service.AuthService;
-import com.apnabaazar.apnabaazar.service.S3Service;
 import com.apnabaazar.apnabaazar.service.SellerService;
+import com.apnabaazar.apnabaazar.service.UserService;
 import jakarta.mail.MessagingException;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
@@ -35,7 +35,7 @@ import java.util.Map;
 public class SellerController {
 
     private final SellerService sellerService;
-    private final S3Service s3Service;
+    private final UserService userService;
     private final MessageSource messageSource;
     private final AuthService authService;
     private Locale locale;
@@ -56,7 +56,7 @@ public class SellerController {
 
     @PostMapping("/upload/profile-image")
     public ResponseEntity<GenericResponseDTO> uploadSellerProfileImage(@RequestParam MultipartFile file, @AuthenticationPrincipal UserPrincipal userPrincipal) throws IOException {
-        String key = s3Service.uploadProfileImage(userPrincipal.getUsername(), file);
+        String key = userService.uploadProfileImage(userPrincipal.getUsername(), file);
         return ResponseEntity.ok(new GenericResponseDTO(true, messageSource.getMessage("image.uploaded", new Object[]{key}, locale) + key));
 
 
@@ -65,7 +65,7 @@ public class SellerController {
     @DeleteMapping("/profile/image")
     public ResponseEntity<GenericResponseDTO> deleteSellerProfileImage(@AuthenticationPrincipal UserPrincipal userPrincipal) {
         String username = userPrincipal.getUsername();
-        boolean deleted = s3Service.deleteProfileImage(username);
+        boolean deleted = userService.deleteProfileImage(username);
         String messageKey = deleted ? "image.deleted" : "image.not-found";
         String message = messageSource.getMessage(messageKey, null, locale);
         return ResponseEntity.ok(new GenericResponseDTO(true, message));
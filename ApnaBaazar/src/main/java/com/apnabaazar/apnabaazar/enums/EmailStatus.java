@@ -0,0 +1,5 @@
+package com.apnabaazar.apnabaazar.enums;
+
+public enum EmailStatus {
+    PENDING, SENT, FAILED
+}
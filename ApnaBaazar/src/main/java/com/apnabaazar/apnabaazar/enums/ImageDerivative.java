@@ -0,0 +1,17 @@
+package com.apnabaazar.apnabaazar.enums;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Downscaled JPEG variants generated for every product image, each fitting inside a square of maxDimension pixels.
+ */
+@Getter
+@RequiredArgsConstructor
+public enum ImageDerivative {
+    THUMBNAIL("thumbnail", 200),
+    MEDIUM("medium", 800);
+
+    private final String path;
+    private final int maxDimension;
+}
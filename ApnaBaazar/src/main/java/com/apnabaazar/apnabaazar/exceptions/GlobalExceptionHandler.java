@@ -196,6 +196,11 @@ public class GlobalExceptionHandler {
         return buildErrorResponse(e.getMessage(), HttpStatus.NOT_FOUND);
     }
 
+    @ExceptionHandler(InvalidCursorException.class)
+    public ResponseEntity<ErrorResponse> handleInvalidCursorException(InvalidCursorException e) {
+        return buildErrorResponse(e.getMessage(), HttpStatus.BAD_REQUEST);
+    }
+
     @ExceptionHandler(InvalidSellerException.class)
     public ResponseEntity<ErrorResponse> handleInvalidSellerException(InvalidSellerException e) {
         return buildErrorResponse(e.getMessage(), HttpStatus.FORBIDDEN);
@@ -0,0 +1,7 @@
+package com.apnabaazar.apnabaazar.exceptions;
+
+public class InvalidCursorException extends RuntimeException {
+    public InvalidCursorException(String message) {
+        super(message);
+    }
+}
@@ -3,9 +3,11 @@ package com.apnabaazar.apnabaazar.filter;
 import com.apnabaazar.apnabaazar.config.UserPrincipal;
 import com.apnabaazar.apnabaazar.exceptions.AccountLockedException;
 import com.apnabaazar.apnabaazar.exceptions.InvalidTokenException;
+import com.apnabaazar.apnabaazar.model.token.VerifiedToken;
 import com.apnabaazar.apnabaazar.service.JwtService;
 import com.apnabaazar.apnabaazar.service.TokenBlacklistService;
 import com.apnabaazar.apnabaazar.service.UserDetailsServiceImpl;
+import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.ExpiredJwtException;
 import io.jsonwebtoken.MalformedJwtException;
 import jakarta.servlet.FilterChain;
@@ -39,6 +41,7 @@ public class JwtFilter  extends OncePerRequestFilter{
         String authorizationHeader = request.getHeader("Authorization");
         String username = null;
         String token = null;
+        Claims claims = null;
 
         try {
             if (authorizationHeader != null && authorizationHeader.startsWith("Bearer ")) {
@@ -51,13 +54,17 @@ public class JwtFilter  extends OncePerRequestFilter{
                     return;
                 }
 
-                username = jwtService.extractUsername(token);
+                claims = jwtService.extractAllClaims(token);
+                username = claims.getSubject();
+                request.setAttribute(VerifiedToken.REQUEST_ATTRIBUTE, new VerifiedToken(token, claims));
             }
             if (username != null) {
-                UserPrincipal userDetails = (UserPrincipal) userDetailsService.loadUserByUsername(username);
+                UserPrincipal userDetails = jwtService.extractStatelessPrincipal(claims);
+                if (userDetails == null)
+                    userDetails = (UserPrincipal) userDetailsService.loadUserByUsername(username);
                 if(userDetails.isAccountNonLocked())
                     throw new AccountLockedException("User account is locked");
-                if (jwtService.validateToken(token, "access", username)) {
+                if (jwtService.validateToken(claims, "access", username)) {
                     UsernamePasswordAuthenticationToken auth = new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
                     auth.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
                     SecurityContextHolder.getContext().setAuthentication(auth);
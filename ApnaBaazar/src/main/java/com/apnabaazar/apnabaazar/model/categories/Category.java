@@ -11,7 +11,9 @@ import java.util.HashSet;
 import java.util.Set;
 
 @Entity
-@Table(name = "categories")
+@Table(name = "categories", indexes = {
+        @Index(name = "idx_categories_path", columnList = "path")
+})
 @Getter
 @Setter
 @Builder
@@ -43,6 +45,11 @@ public class Category {
     @OneToMany(mappedBy = "parentCategory")
     private Set<Category> subCategories = new HashSet<>();
 
+    // Materialized path "/<rootId>/.../<thisId>/"; descendants are the rows whose path starts with this one.
+    // ASCII keeps the indexed column within MySQL's key length limit for deep trees.
+    @Column(name = "path", columnDefinition = "varchar(1000) character set ascii")
+    private String path;
+
 
 
 }
\ No newline at end of file
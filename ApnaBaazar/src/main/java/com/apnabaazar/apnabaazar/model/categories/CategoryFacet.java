@@ -0,0 +1,41 @@
+package com.apnabaazar.apnabaazar.model.categories;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Precomputed browse filters of a category and its whole subtree: brands, active variation price range and
+ * how many active variations carry each metadata value. Leaf facets are aggregated from their products,
+ * parent facets are merged from their children.
+ */
+@Entity
+@Table(name = "category_facets")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class CategoryFacet {
+
+    @Id
+    private String categoryId;
+
+    @JdbcTypeCode(SqlTypes.JSON)
+    private List<String> brands;
+
+    private Double minPrice;
+
+    private Double maxPrice;
+
+    // field name -> value -> number of active variations
+    @JdbcTypeCode(SqlTypes.JSON)
+    private Map<String, Map<String, Long>> metadataValueCounts;
+
+    private LocalDateTime updatedAt;
+}
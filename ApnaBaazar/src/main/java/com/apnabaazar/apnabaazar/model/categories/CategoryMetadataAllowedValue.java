@@ -0,0 +1,36 @@
+package com.apnabaazar.apnabaazar.model.categories;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+/**
+ * One allowed value of a metadata field assigned to a category. Replaces the comma-joined
+ * {@link CategoryMetadataFieldValues#getValues()} so values are appended row by row and checked by index.
+ */
+@Entity
+@Table(name = "category_metadata_allowed_values", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_category_metadata_allowed_value", columnNames = {"category_id", "category_metadata_field_id", "allowed_value"})
+})
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class CategoryMetadataAllowedValue {
+
+    // Identity order is insertion order, which is the order values are listed in
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "category_id", nullable = false)
+    private String categoryId;
+
+    @Column(name = "category_metadata_field_id", nullable = false)
+    private String metadataFieldId;
+
+    // Binary collation so the unique key and lookups compare values exactly, as the services do; the default
+    // collation would treat "Red" and "red" as duplicates
+    @Column(name = "allowed_value", nullable = false, columnDefinition = "varchar(255) character set utf8mb4 collate utf8mb4_bin")
+    private String value;
+}
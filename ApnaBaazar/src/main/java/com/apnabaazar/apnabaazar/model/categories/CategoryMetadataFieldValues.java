@@ -26,8 +26,10 @@ public class CategoryMetadataFieldValues {
     @JoinColumn(name = "category_metadata_field_id")
     private CategoryMetadataField categoryMetadataField;
 
+    // Legacy comma-joined values. New values live in CategoryMetadataAllowedValue; this is emptied once a row
+    // has been migrated and only read as a fallback until then.
     @Column(name = "`values`", nullable = false)
-    private String values;
+    private String values = "";
 }
 
 
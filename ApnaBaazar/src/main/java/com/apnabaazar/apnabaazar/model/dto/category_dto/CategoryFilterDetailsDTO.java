@@ -13,6 +13,7 @@ import java.util.Map;
 public class CategoryFilterDetailsDTO {
     private String categoryName;
     private Map<String, String> metadataFilters;
+    private Map<String, Map<String, Long>> metadataValueCounts;
     private List<String> brands;
     private Double minPrice;
     private Double maxPrice;
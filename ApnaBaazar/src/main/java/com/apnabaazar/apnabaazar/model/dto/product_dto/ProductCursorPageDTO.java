@@ -0,0 +1,16 @@
+package com.apnabaazar.apnabaazar.model.dto.product_dto;
+
+import lombok.Builder;
+import lombok.Getter;
+
+import java.util.List;
+
+@Getter
+@Builder
+public class ProductCursorPageDTO {
+
+    private List<ProductResponseDTO> products;
+
+    // null on the last page
+    private String nextCursor;
+}
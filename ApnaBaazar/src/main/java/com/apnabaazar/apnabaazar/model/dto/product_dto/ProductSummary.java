@@ -0,0 +1,23 @@
+package com.apnabaazar.apnabaazar.model.dto.product_dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Read-only row for product listings, selected column by column instead of loading the Product entity.
+ */
+@Getter
+@AllArgsConstructor
+public class ProductSummary {
+
+    private String productId;
+    private String sellerId;
+    private String name;
+    private String brand;
+    private String description;
+    private boolean cancellable;
+    private boolean returnable;
+    private boolean active;
+    private String categoryId;
+    private String categoryName;
+}
@@ -20,9 +20,18 @@ public class ProductVariationResponseDTO {
     private Double price;
     private String primaryImageUrl;
 
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String primaryImageThumbnailUrl;
+
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String primaryImageMediumUrl;
+
     @JsonProperty(access = JsonProperty.Access.READ_ONLY)
     private boolean active;
 
     @JsonInclude(JsonInclude.Include.NON_NULL)
     private List<String> secondaryImageUrl;
+
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private List<String> secondaryImageThumbnailUrl;
 }
@@ -4,6 +4,7 @@ import com.apnabaazar.apnabaazar.model.categories.Category;
 import com.apnabaazar.apnabaazar.model.users.User;
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.BatchSize;
 import org.hibernate.annotations.SQLDelete;
 import org.hibernate.annotations.Where;
 import org.springframework.data.annotation.CreatedBy;
@@ -12,20 +13,29 @@ import org.springframework.data.annotation.LastModifiedBy;
 import org.springframework.data.annotation.LastModifiedDate;
 import org.springframework.data.jpa.domain.support.AuditingEntityListener;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.time.LocalDateTime;
 import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.Locale;
 import java.util.Set;
 import java.util.UUID;
 
 @Entity
-@Table(name = "products")
+@Table(name = "products", indexes = {
+        @Index(name = "idx_products_category_name_id", columnList = "category_id, name, id")
+}, uniqueConstraints = {
+        @UniqueConstraint(name = "uk_products_seller_category_name_key", columnNames = {"seller_user_id", "category_id", "name_key"})
+})
 @Getter
 @Setter
 @NoArgsConstructor
 @AllArgsConstructor
 @Builder
 @EntityListeners(AuditingEntityListener.class)
-@SQLDelete(sql = "UPDATE products SET is_deleted = true WHERE id = ?")
+@SQLDelete(sql = "UPDATE products SET is_deleted = true, name_key = NULL WHERE id = ?")
 @Where(clause = "is_deleted = false")
 public class Product {
 
@@ -49,6 +59,7 @@ public class Product {
 
     @OneToMany(cascade = CascadeType.ALL, orphanRemoval = true)
     @JoinColumn(name = "product_id") // This creates a foreign key in product_variations table
+    @BatchSize(size = 50)
     private Set<ProductVariation> variations = new HashSet<>();
 
     @OneToMany(mappedBy = "product")
@@ -82,4 +93,32 @@ public class Product {
 
     @Column(nullable = false)
     private boolean isDeleted = false;
+
+    // Normalized brand + name, unique per seller and category; cleared on delete so the name can be reused
+    @Column(name = "name_key", length = 64)
+    private String nameKey;
+
+    @PrePersist
+    @PreUpdate
+    void updateNameKey() {
+        nameKey = isDeleted ? null : computeNameKey(brand, name);
+    }
+
+    /**
+     * SHA-256 of the case-folded, whitespace-collapsed brand and name. Hashing keeps the unique index within
+     * MySQL's key length limit whatever the name length.
+     */
+    public static String computeNameKey(String brand, String name) {
+        String normalized = normalize(brand) + "\n" + normalize(name);
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(normalized.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private static String normalize(String value) {
+        return value.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+    }
 }
\ No newline at end of file
@@ -5,6 +5,7 @@ import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
+import org.hibernate.annotations.BatchSize;
 import org.hibernate.annotations.JdbcTypeCode;
 import org.hibernate.type.SqlTypes;
 import org.springframework.data.annotation.CreatedBy;
@@ -15,7 +16,11 @@ import org.springframework.data.jpa.domain.support.AuditingEntityListener;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
 
 @Entity
@@ -55,6 +60,24 @@ public class ProductVariation {
 
     private String primaryImageName;
 
+    @ElementCollection
+    @CollectionTable(name = "product_variation_secondary_images", joinColumns = @JoinColumn(name = "product_variation_id"))
+    @OrderColumn(name = "position")
+    @Column(name = "image_key", nullable = false)
+    @BatchSize(size = 50)
+    private List<String> secondaryImageKeys = new ArrayList<>();
+
+    // false for variations created before secondary image keys were stored, until the backfill has listed them
+    @Column(nullable = false)
+    private boolean secondaryImagesIndexed = true;
+
+    // keys of this variation's images whose derivatives exist in S3; any other image is served at its original URL
+    @ElementCollection
+    @CollectionTable(name = "product_variation_derived_images", joinColumns = @JoinColumn(name = "product_variation_id"))
+    @Column(name = "image_key", nullable = false)
+    @BatchSize(size = 50)
+    private Set<String> derivedImageKeys = new HashSet<>();
+
     @ManyToOne
     private Product product;
 
@@ -0,0 +1,36 @@
+package com.apnabaazar.apnabaazar.model.token;
+
+import io.jsonwebtoken.Claims;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+/**
+ * Claims of a token whose signature has already been checked during the current request.
+ * JwtFilter stores it as a request attribute so later lookups for the same token skip re-verification.
+ */
+@Getter
+@RequiredArgsConstructor
+public class VerifiedToken {
+
+    public static final String REQUEST_ATTRIBUTE = VerifiedToken.class.getName();
+
+    private final String token;
+    private final Claims claims;
+
+    /**
+     * Returns the verified token of the current request, or null outside a request or before JwtFilter ran.
+     */
+    public static VerifiedToken current() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes == null)
+            return null;
+        Object verified = attributes.getAttribute(REQUEST_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+        return verified instanceof VerifiedToken verifiedToken ? verifiedToken : null;
+    }
+
+    public boolean matches(String token) {
+        return this.token.equals(token);
+    }
+}
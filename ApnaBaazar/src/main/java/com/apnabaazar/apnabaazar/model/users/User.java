@@ -13,7 +13,9 @@ import java.util.HashSet;
 import java.util.Set;
 
 @Entity
-@Table(name = "users")
+@Table(name = "users", indexes = {
+        @Index(name = "idx_users_profile_image_probed_id", columnList = "profile_image_probed, id")
+})
 @Getter
 @Setter
 @SuperBuilder
@@ -74,6 +76,16 @@ public class User {
 
     private LocalDateTime passwordUpdateDate;
 
+    private String profileImageKey;
+
+    // bumped on every profile image change and appended to the image URL so caches pick up the new image
+    private long profileImageVersion;
+
+    // false for users created before profile image keys were stored, until S3 has been probed once for a legacy image
+    @Column(nullable = false)
+    @Builder.Default
+    private boolean profileImageProbed = true;
+
     @OneToMany(cascade = CascadeType.ALL)
     @JoinColumn(name = "user_id")
     private Set<Address> addresses = new HashSet<>();
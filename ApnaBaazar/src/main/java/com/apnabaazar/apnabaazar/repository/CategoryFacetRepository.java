@@ -0,0 +1,18 @@
+package com.apnabaazar.apnabaazar.repository;
+
+import com.apnabaazar.apnabaazar.model.categories.CategoryFacet;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface CategoryFacetRepository extends JpaRepository<CategoryFacet, String> {
+
+    @Query("select f.categoryId from CategoryFacet f")
+    List<String> findAllCategoryIds();
+
+    @Query("select f.categoryId from CategoryFacet f where f.updatedAt is null or f.updatedAt < :cutoff")
+    List<String> findCategoryIdsUpdatedBefore(@Param("cutoff") LocalDateTime cutoff);
+}
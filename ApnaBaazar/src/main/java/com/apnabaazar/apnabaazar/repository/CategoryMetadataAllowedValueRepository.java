@@ -0,0 +1,14 @@
+package com.apnabaazar.apnabaazar.repository;
+
+import com.apnabaazar.apnabaazar.model.categories.CategoryMetadataAllowedValue;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface CategoryMetadataAllowedValueRepository extends JpaRepository<CategoryMetadataAllowedValue, Long> {
+
+    List<CategoryMetadataAllowedValue> findByCategoryIdInOrderByIdAsc(Collection<String> categoryIds);
+
+    List<CategoryMetadataAllowedValue> findByCategoryIdAndMetadataFieldIdAndValueIn(String categoryId, String metadataFieldId, Collection<String> values);
+}
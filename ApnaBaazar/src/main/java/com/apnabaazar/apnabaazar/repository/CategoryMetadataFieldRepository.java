@@ -1,13 +1,17 @@
 package com.apnabaazar.apnabaazar.repository;
 
 import com.apnabaazar.apnabaazar.model.categories.CategoryMetadataField;
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
 
 public interface CategoryMetadataFieldRepository extends JpaRepository<CategoryMetadataField,String> {
 
     boolean existsByName(String name);
 
-    Page<CategoryMetadataField> findByNameContainingIgnoreCase(String name, Pageable pageable);
+    Slice<CategoryMetadataField> findByNameContainingIgnoreCase(String name, Pageable pageable);
+
+    Slice<CategoryMetadataField> findAllBy(Pageable pageable);
+
+    long countByNameContainingIgnoreCase(String name);
 }
@@ -6,10 +6,15 @@ import com.apnabaazar.apnabaazar.model.categories.CategoryMetadataFieldValueId;
 import com.apnabaazar.apnabaazar.model.categories.CategoryMetadataFieldValues;
 import org.springframework.data.jpa.repository.JpaRepository;
 
+import java.util.Collection;
 import java.util.List;
 
 public interface CategoryMetadataFieldValuesRepository extends JpaRepository<CategoryMetadataFieldValues, CategoryMetadataFieldValueId> {
     List<CategoryMetadataFieldValues> findByCategory(Category category);
 
+    List<CategoryMetadataFieldValues> findByCategoryCategoryIdIn(Collection<String> categoryIds);
+
+    List<CategoryMetadataFieldValues> findByValuesNot(String values);
+
 
 }
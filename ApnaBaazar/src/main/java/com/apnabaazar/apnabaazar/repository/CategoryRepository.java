@@ -1,17 +1,27 @@
 package com.apnabaazar.apnabaazar.repository;
 
 import com.apnabaazar.apnabaazar.model.categories.Category;
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 
 import java.util.List;
 
 public interface CategoryRepository extends JpaRepository<Category,String> {
 
-    List<Category> findByParentCategory_CategoryId(String parentCategoryCategoryId);
-
     Category findByCategoryId(String categoryId);
 
-    Page<Category> findByNameContainingIgnoreCase(String query, Pageable pageable);
+    @Query("select c.categoryId, c.name, p.categoryId from Category c left join c.parentCategory p")
+    List<Object[]> findAllTreeRows();
+
+    List<Category> findByPathIsNull();
+
+    boolean existsByPathIsNull();
+
+    Slice<Category> findByNameContainingIgnoreCase(String query, Pageable pageable);
+
+    Slice<Category> findAllBy(Pageable pageable);
+
+    long countByNameContainingIgnoreCase(String query);
 }
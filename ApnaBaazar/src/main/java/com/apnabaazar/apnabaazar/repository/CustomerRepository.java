@@ -1,15 +1,19 @@
 package com.apnabaazar.apnabaazar.repository;
 
 import com.apnabaazar.apnabaazar.model.users.Customer;
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
 
 import java.util.Optional;
 
 public interface CustomerRepository extends JpaRepository<Customer, String> {
 
-    Page<Customer> findByEmailContainingIgnoreCase(String email, Pageable pageable);
+    Slice<Customer> findByEmailContainingIgnoreCase(String email, Pageable pageable);
+
+    Slice<Customer> findAllBy(Pageable pageable);
+
+    long countByEmailContainingIgnoreCase(String email);
 
     Optional<Customer> findByEmail(String email);
 }
@@ -0,0 +1,19 @@
+package com.apnabaazar.apnabaazar.repository;
+
+import com.apnabaazar.apnabaazar.model.email.EmailOutbox;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.Instant;
+import java.util.List;
+
+public interface EmailOutboxRepository extends JpaRepository<EmailOutbox, String> {
+
+    /**
+     * Locks a batch of due pending mails; rows already locked by another dispatcher are skipped rather than waited on.
+     */
+    @Query(value = "SELECT * FROM email_outbox WHERE status = 'PENDING' AND next_attempt_at <= :now " +
+            "ORDER BY next_attempt_at LIMIT :limit FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<EmailOutbox> lockDueBatch(@Param("now") Instant now, @Param("limit") int limit);
+}
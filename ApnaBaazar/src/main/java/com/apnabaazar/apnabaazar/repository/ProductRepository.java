@@ -4,18 +4,26 @@ import com.apnabaazar.apnabaazar.model.categories.Category;
 import com.apnabaazar.apnabaazar.model.products.Product;
 import com.apnabaazar.apnabaazar.model.users.Seller;
 import com.apnabaazar.apnabaazar.model.users.User;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
 
 @Repository
-public interface ProductRepository extends JpaRepository<Product, String>, JpaSpecificationExecutor<Product> {
+public interface ProductRepository extends JpaRepository<Product, String>, JpaSpecificationExecutor<Product>, ProductRepositoryCustom {
 
     boolean existsByCategory(Category category);
 
-    boolean existsByNameAndBrandAndCategoryAndSeller(String name, String brand, Category category, User seller);
+    boolean existsBySellerAndCategoryAndNameKey(User seller, Category category, String nameKey);
 
-    List<Product> findByCategoryCategoryIdIn(List<String> categoryIds);
+    boolean existsBySellerAndCategoryAndNameKeyAndIdNot(User seller, Category category, String nameKey, String id);
+
+    List<Product> findByNameKeyIsNullAndIdGreaterThanOrderByIdAsc(String id, Pageable pageable);
+
+    @Query("select distinct p.brand from Product p where p.category.categoryId = :categoryId")
+    List<String> findDistinctBrandsByCategoryId(@Param("categoryId") String categoryId);
 }
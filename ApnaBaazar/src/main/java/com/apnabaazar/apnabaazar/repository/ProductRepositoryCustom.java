@@ -0,0 +1,16 @@
+package com.apnabaazar.apnabaazar.repository;
+
+import com.apnabaazar.apnabaazar.model.dto.product_dto.ProductSummary;
+import com.apnabaazar.apnabaazar.model.products.Product;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.List;
+
+public interface ProductRepositoryCustom {
+
+    List<ProductSummary> findProductSummaries(Specification<Product> spec, Pageable pageable);
+
+    Slice<Product> findSlice(Specification<Product> spec, Pageable pageable);
+}
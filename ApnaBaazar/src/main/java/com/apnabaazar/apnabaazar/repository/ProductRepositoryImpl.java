@@ -0,0 +1,95 @@
+package com.apnabaazar.apnabaazar.repository;
+
+import com.apnabaazar.apnabaazar.model.dto.product_dto.ProductSummary;
+import com.apnabaazar.apnabaazar.model.products.Product;
+import jakarta.persistence.EntityGraph;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+
+import java.util.List;
+
+class ProductRepositoryImpl implements ProductRepositoryCustom {
+
+    private static final String LOAD_GRAPH_HINT = "jakarta.persistence.loadgraph";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /**
+     * Runs the specification as a constructor projection, so only the listed columns are read and nothing
+     * (seller, roles, variations) ends up in the persistence context.
+     */
+    @Override
+    public List<ProductSummary> findProductSummaries(Specification<Product> spec, Pageable pageable) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<ProductSummary> query = cb.createQuery(ProductSummary.class);
+        Root<Product> root = query.from(Product.class);
+        Path<Object> category = root.get("category");
+
+        query.select(cb.construct(ProductSummary.class,
+                root.get("id"),
+                root.get("seller").get("id"),
+                root.get("name"),
+                root.get("brand"),
+                root.get("description"),
+                root.get("cancellable"),
+                root.get("returnable"),
+                root.get("active"),
+                category.get("categoryId"),
+                category.get("name")));
+
+        Predicate predicate = spec == null ? null : spec.toPredicate(root, query, cb);
+        if (predicate != null)
+            query.where(predicate);
+        if (pageable.getSort().isSorted())
+            query.orderBy(QueryUtils.toOrders(pageable.getSort(), root, cb));
+
+        TypedQuery<ProductSummary> typedQuery = entityManager.createQuery(query);
+        if (pageable.isPaged()) {
+            typedQuery.setFirstResult((int) pageable.getOffset());
+            typedQuery.setMaxResults(pageable.getPageSize());
+        }
+        return typedQuery.getResultList();
+    }
+
+    /**
+     * Page of products without the count query: one extra row is read to tell whether a next page exists.
+     * Seller and category are joined into the page query; variations are batch-loaded (see Product.variations).
+     */
+    @Override
+    public Slice<Product> findSlice(Specification<Product> spec, Pageable pageable) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Product> query = cb.createQuery(Product.class);
+        Root<Product> root = query.from(Product.class);
+
+        Predicate predicate = spec == null ? null : spec.toPredicate(root, query, cb);
+        if (predicate != null)
+            query.where(predicate);
+        if (pageable.getSort().isSorted())
+            query.orderBy(QueryUtils.toOrders(pageable.getSort(), root, cb));
+
+        EntityGraph<Product> graph = entityManager.createEntityGraph(Product.class);
+        graph.addAttributeNodes("seller", "category");
+        TypedQuery<Product> typedQuery = entityManager.createQuery(query)
+                .setHint(LOAD_GRAPH_HINT, graph);
+        if (pageable.isUnpaged())
+            return new SliceImpl<>(typedQuery.getResultList(), pageable, false);
+
+        typedQuery.setFirstResult((int) pageable.getOffset());
+        typedQuery.setMaxResults(pageable.getPageSize() + 1);
+        List<Product> products = typedQuery.getResultList();
+        boolean hasNext = products.size() > pageable.getPageSize();
+        return new SliceImpl<>(hasNext ? products.subList(0, pageable.getPageSize()) : products, pageable, hasNext);
+    }
+}
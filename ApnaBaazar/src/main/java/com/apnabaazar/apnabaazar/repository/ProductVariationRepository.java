@@ -2,7 +2,35 @@ package com.apnabaazar.apnabaazar.repository;
 
 import com.apnabaazar.apnabaazar.model.products.ProductVariation;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.Map;
 
 public interface ProductVariationRepository extends JpaRepository<ProductVariation, String>, JpaSpecificationExecutor<ProductVariation> {
+
+    List<ProductVariation> findBySecondaryImagesIndexedFalse(Pageable pageable);
+
+    /**
+     * Records that the derivatives of an image exist. A plain insert, so the image pipeline never rewrites the
+     * variation row a seller may be editing at the same time.
+     */
+    @Transactional
+    @Modifying
+    @Query(value = "INSERT IGNORE INTO product_variation_derived_images (product_variation_id, image_key) " +
+            "VALUES (:variationId, :imageKey)", nativeQuery = true)
+    void markImageDerived(@Param("variationId") String variationId, @Param("imageKey") String imageKey);
+
+    @Query("select min(v.price), max(v.price) from ProductVariation v join v.product p " +
+            "where p.category.categoryId = :categoryId and p.isDeleted = false and v.isActive = true")
+    List<Object[]> findActivePriceRangeByCategoryId(@Param("categoryId") String categoryId);
+
+    @Query("select v.metadata from ProductVariation v join v.product p " +
+            "where p.category.categoryId = :categoryId and p.isDeleted = false and v.isActive = true")
+    List<Map<String, Object>> findActiveMetadataByCategoryId(@Param("categoryId") String categoryId);
 }
@@ -2,6 +2,7 @@ package com.apnabaazar.apnabaazar.repository;
 
 import com.apnabaazar.apnabaazar.model.users.Role;
 import com.apnabaazar.apnabaazar.model.users.User;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -15,6 +16,8 @@ import java.util.Set;
 public interface UserRepository extends JpaRepository<User, String> {
 
     Optional<User> findByEmail(String email);
+
+    List<User> findByProfileImageProbedFalseAndIdGreaterThanOrderByIdAsc(String id, Pageable pageable);
     
 
     Optional<User> findByEmailAndRoles(String email, Set<Role> roles);
@@ -1,6 +1,7 @@
 package com.apnabaazar.apnabaazar.service;
 
 import com.apnabaazar.apnabaazar.config.UserPrincipal;
+import com.apnabaazar.apnabaazar.enums.ImageDerivative;
 import com.apnabaazar.apnabaazar.exceptions.*;
 import com.apnabaazar.apnabaazar.mapper.Mapper;
 import com.apnabaazar.apnabaazar.model.categories.Category;
@@ -30,9 +31,9 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.context.MessageSource;
 import org.springframework.context.i18n.LocaleContextHolder;
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.http.ResponseEntity;
@@ -66,28 +67,45 @@ public class AdminService {
     private final MessageSource messageSource;
     private final UserRepository userRepository;
     private final UserService userService;
+    private final UserDetailsServiceImpl userDetailsService;
+    private final ListingCountService listingCountService;
+    private final CategoryTreeService categoryTreeService;
+    private final CategoryMetadataResolver categoryMetadataResolver;
+    private final CategoryMetadataService categoryMetadataService;
 
 
     public List<CustomerResponseDTO> getCustomers(int pageSize, int pageOffset, String sort, String email) {
         Pageable pageable = PageRequest.of(pageOffset, pageSize, Sort.by(sort));
-        Page<Customer> customerPage;
+        Slice<Customer> customerPage;
         if (email != null && !email.isBlank())
             customerPage = customerRepository.findByEmailContainingIgnoreCase(email, pageable);
         else
-            customerPage = customerRepository.findAll(pageable);
+            customerPage = customerRepository.findAllBy(pageable);
         return customerPage.stream().map(Mapper::fromCustomer).toList();
     }
 
+    public long countCustomers(String email) {
+        if (email != null && !email.isBlank())
+            return listingCountService.getTotal("customers:" + email.toLowerCase(), () -> customerRepository.countByEmailContainingIgnoreCase(email));
+        return listingCountService.getTotal("customers", customerRepository::count);
+    }
+
     public List<SellerResponseDTO> getSellers(int pageSize, int pageOffset, String sort, String email) {
         Pageable pageable = PageRequest.of(pageOffset, pageSize, Sort.by(sort));
-        Page<Seller> sellerPage;
+        Slice<Seller> sellerPage;
         if (email != null && !email.isBlank())
             sellerPage = sellerRepository.findByEmailContainingIgnoreCase(email, pageable);
         else
-            sellerPage = sellerRepository.findAll(pageable);
+            sellerPage = sellerRepository.findAllBy(pageable);
         return sellerPage.stream().map(Mapper::fromSeller).toList();
     }
 
+    public long countSellers(String email) {
+        if (email != null && !email.isBlank())
+            return listingCountService.getTotal("sellers:" + email.toLowerCase(), () -> sellerRepository.countByEmailContainingIgnoreCase(email));
+        return listingCountService.getTotal("sellers", sellerRepository::count);
+    }
+
     public ResponseEntity<GenericResponseDTO> activateCustomer(String id) throws MessagingException {
         Customer customer = customerRepository.findById(id)
                 .orElseThrow(() -> new UserNotFoundException("Customer not found with this ID."));
@@ -97,6 +115,7 @@ public class AdminService {
         }
         customer.setActive(true);
         customerRepository.save(customer);
+        userDetailsService.evictUser(customer.getEmail());
         emailService.sendVerificationSuccessEmail(customer.getEmail(), "Account Activated");
 
         return ResponseEntity.ok(new GenericResponseDTO(true, "Customer account activated successfully."));
@@ -111,6 +130,7 @@ public class AdminService {
         }
         seller.setActive(true);
         sellerRepository.save(seller);
+        userDetailsService.evictUser(seller.getEmail());
         emailService.sendVerificationSuccessEmail(seller.getEmail(), "Account Activated");
 
         return ResponseEntity.ok(new GenericResponseDTO(true, "Seller account activated successfully."));
@@ -124,6 +144,7 @@ public class AdminService {
         }
         customer.setActive(false);
         customerRepository.save(customer);
+        userDetailsService.evictUser(customer.getEmail());
         emailService.sendAccountDeactivationEmail(customer.getEmail(), "Account Deactivated");
         return ResponseEntity.ok(new GenericResponseDTO(true, "Account deactivated successfully."));
     }
@@ -136,6 +157,7 @@ public class AdminService {
         }
         seller.setActive(false);
         sellerRepository.save(seller);
+        userDetailsService.evictUser(seller.getEmail());
         emailService.sendAccountDeactivationEmail(seller.getEmail(), "Account Deactivated");
         return ResponseEntity.ok(new GenericResponseDTO(true, "Account deactivated successfully."));
     }
@@ -158,14 +180,20 @@ public class AdminService {
         Sort.Direction direction = Sort.Direction.fromOptionalString(order).orElse(Sort.Direction.ASC);
         Pageable pageable = PageRequest.of(offset, max, Sort.by(direction, sort));
 
-        Page<CategoryMetadataField> metadataFieldPage;
+        Slice<CategoryMetadataField> metadataFieldPage;
         if (query != null && !query.isBlank())
             metadataFieldPage = categoryMetadataFieldRepository.findByNameContainingIgnoreCase(query, pageable);
         else
-            metadataFieldPage = categoryMetadataFieldRepository.findAll(pageable);
+            metadataFieldPage = categoryMetadataFieldRepository.findAllBy(pageable);
         return metadataFieldPage.stream().map(Mapper::fromMetadataField).toList();
     }
 
+    public long countMetadataFields(String query) {
+        if (query != null && !query.isBlank())
+            return listingCountService.getTotal("metadata-fields:" + query.toLowerCase(), () -> categoryMetadataFieldRepository.countByNameContainingIgnoreCase(query));
+        return listingCountService.getTotal("metadata-fields", categoryMetadataFieldRepository::count);
+    }
+
 
     //-------------------------------------------------------------------------------------------------------------------------------------------
 
@@ -193,11 +221,11 @@ public class AdminService {
         Sort.Direction direction = Sort.Direction.fromOptionalString(order).orElse(Sort.Direction.ASC);
         Pageable pageable = PageRequest.of(offset, max, Sort.by(direction, sort));
 
-        Page<Category> categoryPage;
+        Slice<Category> categoryPage;
         if (query != null && !query.isBlank()) {
             categoryPage = categoryRepository.findByNameContainingIgnoreCase(query, pageable);
         } else {
-            categoryPage = categoryRepository.findAll(pageable);
+            categoryPage = categoryRepository.findAllBy(pageable);
         }
 
         return categoryPage.stream()
@@ -205,6 +233,12 @@ public class AdminService {
                 .toList();
     }
 
+    public long countCategories(String query) {
+        if (query != null && !query.isBlank())
+            return listingCountService.getTotal("categories:" + query.toLowerCase(), () -> categoryRepository.countByNameContainingIgnoreCase(query));
+        return listingCountService.getTotal("categories", categoryRepository::count);
+    }
+
     public void updateCategory(CategoryUpdateDTO categoryUpdateDTO) {
         Category category = categoryService.getCategoryById(categoryUpdateDTO.getCategoryId());
         String updatedName = categoryUpdateDTO.getCategoryName().trim();
@@ -212,6 +246,7 @@ public class AdminService {
         categoryService.validateUpdatedCategoryName(updatedName,category, parentCategory);
         category.setName(updatedName);
         categoryRepository.save(category);
+        categoryTreeService.refresh();
     }
 
 
@@ -232,10 +267,11 @@ public class AdminService {
             fieldValue.setId(new CategoryMetadataFieldValueId(categoryId, fieldValueDTO.getFieldId()));
             fieldValue.setCategory(category);
             fieldValue.setCategoryMetadataField(field);
-            fieldValue.setValues(String.join(",", uniqueValues));
 
             categoryMetadataFieldValuesRepository.save(fieldValue);
+            categoryMetadataService.appendAllowedValues(categoryId, field.getId(), uniqueValues);
         }
+        categoryMetadataResolver.invalidate(categoryId);
     }
 
     public void updateCategoryMetadataFieldValuesForCategory(String categoryId, List<CategoryMetadataFieldValueDTO> fieldValueDTOList) {
@@ -252,19 +288,16 @@ public class AdminService {
                     ));
 
             Set<String> newValues = categoryService.extractUniqueMetadataValues(fieldValueDTO.getValues(), field.getName(), locale);
-            Set<String> existingValues = new HashSet<>(Arrays.asList(existingValue.getValues().split(",")));
-
-            for (String newValue : newValues) {
-                if (existingValues.contains(newValue)) {
-                    throw new DuplicateMetadataAssignmentException(
-                            messageSource.getMessage("metadata.value.duplicate", new Object[]{newValue, field.getName()}, locale));
-                }
+            categoryMetadataService.migrateLegacyValues(existingValue);
+            String duplicate = categoryMetadataService.findExistingValue(categoryId, field.getId(), newValues);
+            if (duplicate != null) {
+                throw new DuplicateMetadataAssignmentException(
+                        messageSource.getMessage("metadata.value.duplicate", new Object[]{duplicate, field.getName()}, locale));
             }
 
-            existingValues.addAll(newValues);
-            existingValue.setValues(String.join(",", existingValues));
-            categoryMetadataFieldValuesRepository.save(existingValue);
+            categoryMetadataService.appendAllowedValues(categoryId, field.getId(), newValues);
         }
+        categoryMetadataResolver.invalidate(categoryId);
     }
 
 
@@ -309,6 +342,8 @@ public class AdminService {
                             .quantity(variation.getQuantityAvailable())
                             .price(variation.getPrice())
                             .primaryImageUrl(primaryImageUrl)
+                            .primaryImageThumbnailUrl(productService.getDerivedImageUrl(variation, variation.getPrimaryImageName(), ImageDerivative.THUMBNAIL))
+                            .primaryImageMediumUrl(productService.getDerivedImageUrl(variation, variation.getPrimaryImageName(), ImageDerivative.MEDIUM))
                             .build();
                 })
                 .toList();
@@ -364,6 +399,7 @@ public class AdminService {
         user.setLocked(false);
         user.setInvalidAttemptCount(0);
         userRepository.save(user);
+        userDetailsService.evictUser(user.getEmail());
         emailService.sendAccountUnlockedEmail(user.getEmail(),"Account Unlocked");
     }
 }
@@ -13,7 +13,6 @@ import com.apnabaazar.apnabaazar.repository.UserRepository;
 import io.jsonwebtoken.ExpiredJwtException;
 import io.jsonwebtoken.JwtException;
 import io.jsonwebtoken.MalformedJwtException;
-import jakarta.mail.MessagingException;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -47,8 +46,10 @@ public class AuthService {
     private final EmailService emailService;
     private final JwtService jwtService;
     private final AuthTokenRepository authTokenRepository;
+    private final UserDetailsServiceImpl userDetailsService;
 
 
+    @Transactional
     public String customerSignup(CustomerDTO input) {
         Locale locale = LocaleContextHolder.getLocale();
         log.info("Starting customer signup process for email: {}", input.getEmail());
@@ -95,19 +96,15 @@ public class AuthService {
         authTokenRepository.save(authToken);
         log.info("Activation token generated and saved for email: {}", customer.getEmail());
 
-        try {
-            emailService.sendVerificationEmail(customer.getEmail(), "Account Verification", activationToken);
-            log.info("Verification email sent to: {}", customer.getEmail());
-        } catch (MessagingException e) {
-            log.error("Failed to send verification email to {}: {}", customer.getEmail(), e.getMessage());
-            throw new EmailSendingException(messageSource.getMessage("email.sending.failed", null, locale), e);
-        }
+        emailService.sendVerificationEmail(customer.getEmail(), "Account Verification", activationToken);
+        log.info("Verification email queued for: {}", customer.getEmail());
 
         log.info("Customer signup completed successfully for email: {}", customer.getEmail());
         return messageSource.getMessage("user.registered.success", null, locale);
     }
 
 
+    @Transactional
     public String verifyUser(String token) {
         log.info("Verifying user with token");
 
@@ -126,12 +123,7 @@ public class AuthService {
                     Instant.now().plusMillis(jwtService.getActivationTokenExpirationTime()));
             authTokenRepository.save(newVerificationToken);
 
-            try {
-                emailService.sendVerificationEmail(emailId, "Account Verification", newToken);
-            } catch (MessagingException e) {
-                log.error("Failed to send new verification email to {}", emailId, e);
-                throw new EmailSendingException(messageSource.getMessage("email.verification.resend.failed", null, LocaleContextHolder.getLocale()), e);
-            }
+            emailService.sendVerificationEmail(emailId, "Account Verification", newToken);
 
             return messageSource.getMessage("token.expired.verification.resent", null, LocaleContextHolder.getLocale());
         }
@@ -149,22 +141,19 @@ public class AuthService {
 
         user.setActive(true);
         userRepository.save(user);
+        userDetailsService.evictUser(emailId);
         log.info("User {} marked as active", emailId);
 
         authTokenRepository.delete(verificationToken);
-        try {
-            emailService.sendVerificationSuccessEmail(emailId, "Email Verification Successful");
-        } catch (MessagingException e) {
-            log.error("Failed to send verification success email to {}", emailId, e);
-            throw new EmailSendingException(messageSource.getMessage("email.verification.success.failed", null, LocaleContextHolder.getLocale()), e);
-        }
+        emailService.sendVerificationSuccessEmail(emailId, "Email Verification Successful");
 
         return messageSource.getMessage("email.verification.success", null, LocaleContextHolder.getLocale());
     }
 
 
 
-    public String resendVerificationEmail(String emailId) throws MessagingException {
+    @Transactional
+    public String resendVerificationEmail(String emailId) {
         log.info("Resending verification email to {}", emailId);
 
         Role role = roleRepository.findByAuthority("ROLE_CUSTOMER")
@@ -193,13 +182,8 @@ public class AuthService {
         authTokenRepository.save(authToken);
         log.debug("New activation token saved for {}", emailId);
 
-        try {
-            emailService.sendVerificationEmail(user.getEmail(), "Account Verification", activationToken);
-            log.info("Verification email sent to {}", emailId);
-        } catch (MessagingException e) {
-            log.error("Failed to send verification email to {}", emailId, e);
-            throw new EmailSendingException(messageSource.getMessage("email.verification.failed", null, LocaleContextHolder.getLocale()), e);
-        }
+        emailService.sendVerificationEmail(user.getEmail(), "Account Verification", activationToken);
+        log.info("Verification email queued for {}", emailId);
 
         return messageSource.getMessage("verification.email.resent.success", null, LocaleContextHolder.getLocale());
     }
@@ -256,7 +240,7 @@ public class AuthService {
 
         String sessionId = UUID.randomUUID().toString();
         String refreshToken = jwtService.generateRefreshToken(user.getEmail());
-        String accessToken = jwtService.generateAccessToken(user.getEmail(), sessionId);
+        String accessToken = jwtService.generateAccessToken(user, sessionId);
 
         // Store mapping between access and refresh token
         redisTemplate.opsForValue().set("session:" + sessionId, refreshToken, jwtService.getAccessTokenExpirationTime() + 60000, TimeUnit.MILLISECONDS);
@@ -283,14 +267,11 @@ public class AuthService {
             user.setLocked(true);
             log.warn("User account locked due to 3 failed login attempts: {}", user.getEmail());
 
-            try {
-                emailService.sendAccountLockedEmail(user.getEmail(), messageSource.getMessage("account.locked.email.subject", null, LocaleContextHolder.getLocale()));
-            } catch (MessagingException e) {
-                log.error("Failed to send account locked notification for user: {}", user.getEmail(), e);
-                throw new EmailSendingException(messageSource.getMessage("email.send.failed.account.locked", null, LocaleContextHolder.getLocale()), e);
-            }
+            emailService.sendAccountLockedEmail(user.getEmail(), messageSource.getMessage("account.locked.email.subject", null, LocaleContextHolder.getLocale()));
         }
         userRepository.save(user);
+        if (user.isLocked())
+            userDetailsService.evictUser(user.getEmail());
         log.debug("User locked status and invalid attempt count saved for user: {}", user.getEmail());
     }
 
@@ -339,7 +320,7 @@ public class AuthService {
                 });
 
         String sessionId = UUID.randomUUID().toString();
-        String newAccessToken = jwtService.generateAccessToken(email, sessionId);
+        String newAccessToken = jwtService.generateAccessToken(user, sessionId);
 
         // Store mapping between access and refresh token
         redisTemplate.opsForValue().set("session:" + sessionId, refreshToken, jwtService.getAccessTokenExpirationTime(), TimeUnit.MILLISECONDS);
@@ -376,6 +357,7 @@ public class AuthService {
         return messageSource.getMessage("logout.success", null, LocaleContextHolder.getLocale());
     }
 
+    @Transactional
     public String sellerSignup(SellerDTO input) {
         log.info("Starting seller signup for email: {}", input.getEmail());
 
@@ -433,18 +415,14 @@ public class AuthService {
         log.info("Seller saved successfully: {}", input.getEmail());
 
         // Send success email
-        try {
-            emailService.sendSuccessEmailToSeller(input.getEmail(), messageSource.getMessage("email.verification.success", null, LocaleContextHolder.getLocale()));
-            log.info("Success email sent to seller: {}", input.getEmail());
-        } catch (MessagingException e) {
-            log.error("Failed to send success email to seller: {}", input.getEmail(), e);
-            throw new EmailSendingException(messageSource.getMessage("email.send.failed.account.locked", null, LocaleContextHolder.getLocale()), e);
-        }
+        emailService.sendSuccessEmailToSeller(input.getEmail(), messageSource.getMessage("email.verification.success", null, LocaleContextHolder.getLocale()));
+        log.info("Success email queued for seller: {}", input.getEmail());
 
         return messageSource.getMessage("seller.signup.success", null, LocaleContextHolder.getLocale());
     }
 
 
+    @Transactional
     public String forgotPassword(ForgotPasswordDTO forgotPasswordDTO) {
 
         User user = userRepository.findByEmail(forgotPasswordDTO.getEmail())
@@ -462,10 +440,9 @@ public class AuthService {
         String userResetTokenKey = "user_reset_token:" + forgotPasswordDTO.getEmail();
 
         // If user already has a reset token, invalidate it by deleting from Redis
-        String previousToken = redisTemplate.opsForValue().get(userResetTokenKey);
-        if (previousToken != null) {
-            String previousTokenKey = "bl_reset_token:" + previousToken;
-            redisTemplate.delete(previousTokenKey);
+        String previousTokenDigest = redisTemplate.opsForValue().get(userResetTokenKey);
+        if (previousTokenDigest != null) {
+            tokenBlacklistService.removeResetTokenDigest(previousTokenDigest);
         }
 
         // Generate a new reset password token
@@ -475,18 +452,12 @@ public class AuthService {
         tokenBlacklistService.blacklistResetToken(token, tokenExpirationMillis);
 
         // Store reference to the user's current reset token in Redis
-        redisTemplate.opsForValue().set(userResetTokenKey, token, tokenExpirationMillis, TimeUnit.MILLISECONDS);
+        redisTemplate.opsForValue().set(userResetTokenKey, tokenBlacklistService.tokenDigest(token), tokenExpirationMillis, TimeUnit.MILLISECONDS);
 
         // Send reset password email
-        try {
-            emailService.sendResetPasswordEmail(user.getEmail(),
-                    messageSource.getMessage("email.reset.subject", null, LocaleContextHolder.getLocale()),
-                    token);
-        } catch (MessagingException e) {
-            throw new EmailSendingException(
-                    messageSource.getMessage("email.send.failed.reset", null, LocaleContextHolder.getLocale()), e
-            );
-        }
+        emailService.sendResetPasswordEmail(user.getEmail(),
+                messageSource.getMessage("email.reset.subject", null, LocaleContextHolder.getLocale()),
+                token);
 
         return messageSource.getMessage("password.reset.link.sent", null, LocaleContextHolder.getLocale());
     }
@@ -533,10 +504,7 @@ public class AuthService {
             }
 
             // Check if token is in Redis store
-            String tokenKey = "bl_reset_token:" + resetPasswordDTO.getToken();
-            String storedToken = tokenBlacklistService.getStoredToken(tokenKey);
-
-            if (storedToken == null) {
+            if (!tokenBlacklistService.isResetTokenStored(resetPasswordDTO.getToken())) {
                 throw new InvalidTokenException(
                         messageSource.getMessage("token.not.found.or.used", null, LocaleContextHolder.getLocale())
                 );
@@ -558,9 +526,10 @@ public class AuthService {
             user.setPasswordUpdateDate(LocalDateTime.now());
             user.setExpired(false);
             userRepository.save(user);
+            userDetailsService.evictUser(email);
 
             // Remove used token
-            redisTemplate.delete(tokenKey);
+            tokenBlacklistService.removeResetToken(resetPasswordDTO.getToken());
 
             return messageSource.getMessage("password.reset.success", null, LocaleContextHolder.getLocale());
 
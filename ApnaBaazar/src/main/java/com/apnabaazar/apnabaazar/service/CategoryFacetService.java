@@ -0,0 +1,256 @@
+package com.apnabaazar.apnabaazar.service;
+
+import com.apnabaazar.apnabaazar.model.categories.CategoryFacet;
+import com.apnabaazar.apnabaazar.repository.CategoryFacetRepository;
+import com.apnabaazar.apnabaazar.repository.ProductRepository;
+import com.apnabaazar.apnabaazar.repository.ProductVariationRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Maintains {@link CategoryFacet} rows so the customer filter endpoint reads one row by primary key.
+ * Product and variation changes mark their (leaf) category; after commit the leaf is re-aggregated and the
+ * change is rolled up through its ancestors on a single background thread. A periodic refresh recomputes facets
+ * older than the configured age, repairing any whose recomputation was rejected or lost with a restart.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class CategoryFacetService {
+
+    private final CategoryFacetRepository categoryFacetRepository;
+    private final ProductRepository productRepository;
+    private final ProductVariationRepository productVariationRepository;
+    private final CategoryTreeService categoryTreeService;
+    private final ThreadPoolTaskExecutor facetExecutor;
+
+    // Categories queued for recomputation; repeated changes before the task runs are coalesced
+    private final Set<String> pending = ConcurrentHashMap.newKeySet();
+
+    @Value("${apnabaazar.category-facets.max-age:86400000}")
+    private long maxAgeMillis;
+
+    /**
+     * Stored facet of the category. A missing facet is computed for this response only and its store is queued on
+     * the facet thread, so the read path never writes and cannot collide with the background insert.
+     */
+    public CategoryFacet getFacet(String categoryId) {
+        return categoryFacetRepository.findById(categoryId).orElseGet(() -> {
+            CategoryTreeSnapshot.CategoryNode node = categoryTreeService.getNode(categoryId);
+            if (node == null)
+                return emptyFacet(categoryId);
+            CategoryFacet facet = compute(node);
+            schedule(categoryId);
+            return facet;
+        });
+    }
+
+    /**
+     * Schedules recomputation of the category and its ancestors once the current transaction commits.
+     */
+    public void markChanged(String categoryId) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    schedule(categoryId);
+                }
+            });
+        } else {
+            schedule(categoryId);
+        }
+    }
+
+    private void schedule(String categoryId) {
+        if (!pending.add(categoryId))
+            return;
+        try {
+            facetExecutor.execute(() -> {
+                // Cleared before the work so a change made while it runs queues another pass
+                pending.remove(categoryId);
+                try {
+                    recomputeWithAncestors(categoryId);
+                } catch (RuntimeException e) {
+                    log.error("Failed to recompute facets for category {}: {}", categoryId, e.getMessage(), e);
+                }
+            });
+        } catch (TaskRejectedException e) {
+            pending.remove(categoryId);
+            log.warn("Facet queue full, facets of category {} stay stale until its next change or refresh", categoryId);
+        }
+    }
+
+    void recomputeWithAncestors(String categoryId) {
+        CategoryTreeSnapshot.CategoryNode node = categoryTreeService.getNode(categoryId);
+        if (node == null)
+            return;
+        categoryFacetRepository.save(compute(node));
+        List<CategoryTreeSnapshot.CategoryNode> ancestors = node.getAncestors();
+        for (int i = ancestors.size() - 1; i >= 0; i--)
+            categoryFacetRepository.save(compute(ancestors.get(i)));
+    }
+
+    private CategoryFacet computeAndStore(String categoryId) {
+        CategoryTreeSnapshot.CategoryNode node = categoryTreeService.getNode(categoryId);
+        if (node == null)
+            return emptyFacet(categoryId);
+        return categoryFacetRepository.save(compute(node));
+    }
+
+    private CategoryFacet compute(CategoryTreeSnapshot.CategoryNode node) {
+        return node.isLeaf() ? aggregateLeaf(node.getCategoryId()) : mergeChildren(node);
+    }
+
+    // Products only hang off leaf categories, so a leaf is aggregated straight from its products
+    private CategoryFacet aggregateLeaf(String categoryId) {
+        List<String> brands = productRepository.findDistinctBrandsByCategoryId(categoryId).stream().sorted().toList();
+
+        Double minPrice = null;
+        Double maxPrice = null;
+        List<Object[]> range = productVariationRepository.findActivePriceRangeByCategoryId(categoryId);
+        if (!range.isEmpty()) {
+            minPrice = (Double) range.get(0)[0];
+            maxPrice = (Double) range.get(0)[1];
+        }
+
+        Map<String, Map<String, Long>> counts = new TreeMap<>();
+        for (Map<String, Object> metadata : productVariationRepository.findActiveMetadataByCategoryId(categoryId)) {
+            if (metadata == null)
+                continue;
+            metadata.forEach((field, value) -> {
+                if (value != null)
+                    counts.computeIfAbsent(field, f -> new TreeMap<>()).merge(value.toString(), 1L, Long::sum);
+            });
+        }
+        return CategoryFacet.builder()
+                .categoryId(categoryId)
+                .brands(brands)
+                .minPrice(minPrice)
+                .maxPrice(maxPrice)
+                .metadataValueCounts(counts)
+                .updatedAt(LocalDateTime.now())
+                .build();
+    }
+
+    private CategoryFacet mergeChildren(CategoryTreeSnapshot.CategoryNode node) {
+        List<String> childIds = node.getChildren().stream().map(CategoryTreeSnapshot.CategoryNode::getCategoryId).toList();
+        Map<String, CategoryFacet> stored = categoryFacetRepository.findAllById(childIds).stream()
+                .collect(Collectors.toMap(CategoryFacet::getCategoryId, Function.identity()));
+
+        Set<String> brands = new TreeSet<>();
+        Double minPrice = null;
+        Double maxPrice = null;
+        Map<String, Map<String, Long>> counts = new TreeMap<>();
+        for (CategoryTreeSnapshot.CategoryNode child : node.getChildren()) {
+            CategoryFacet facet = stored.get(child.getCategoryId());
+            if (facet == null)
+                // Not stored here: this may be the read path, and seeding stores missing facets
+                facet = compute(child);
+
+            if (facet.getBrands() != null)
+                brands.addAll(facet.getBrands());
+            if (facet.getMinPrice() != null)
+                minPrice = minPrice == null ? facet.getMinPrice() : Math.min(minPrice, facet.getMinPrice());
+            if (facet.getMaxPrice() != null)
+                maxPrice = maxPrice == null ? facet.getMaxPrice() : Math.max(maxPrice, facet.getMaxPrice());
+            if (facet.getMetadataValueCounts() != null)
+                facet.getMetadataValueCounts().forEach((field, values) ->
+                        values.forEach((value, count) ->
+                                counts.computeIfAbsent(field, f -> new TreeMap<>()).merge(value, count, Long::sum)));
+        }
+        return CategoryFacet.builder()
+                .categoryId(node.getCategoryId())
+                .brands(new ArrayList<>(brands))
+                .minPrice(minPrice)
+                .maxPrice(maxPrice)
+                .metadataValueCounts(counts)
+                .updatedAt(LocalDateTime.now())
+                .build();
+    }
+
+    private CategoryFacet emptyFacet(String categoryId) {
+        return CategoryFacet.builder()
+                .categoryId(categoryId)
+                .brands(List.of())
+                .metadataValueCounts(Map.of())
+                .build();
+    }
+
+    /**
+     * Recomputes facets not updated within the max age, deepest categories first so parents merge refreshed
+     * children. Bounds how long a facet can stay stale when its change-driven recomputation never ran. Runs on the
+     * facet thread with every other facet write, so it cannot overwrite a newer recompute with an older read.
+     */
+    @Scheduled(fixedDelayString = "${apnabaazar.category-facets.refresh-interval:3600000}")
+    public void refreshStale() {
+        submit("refresh stale category facets", () -> {
+            int refreshed = refreshOlderThan(LocalDateTime.now().minus(Duration.ofMillis(maxAgeMillis)));
+            if (refreshed > 0)
+                log.info("Refreshed stale filter facets of {} categories", refreshed);
+        });
+    }
+
+    /**
+     * Queues a facet computation for every category that has none yet; used to seed the table.
+     */
+    public void seedMissing() {
+        submit("seed category facets", () -> {
+            int computed = computeMissing();
+            if (computed > 0)
+                log.info("Computed filter facets for {} categories", computed);
+        });
+    }
+
+    private void submit(String description, Runnable work) {
+        try {
+            facetExecutor.execute(() -> {
+                try {
+                    work.run();
+                } catch (RuntimeException e) {
+                    log.error("Failed to {}: {}", description, e.getMessage(), e);
+                }
+            });
+        } catch (TaskRejectedException e) {
+            log.warn("Facet queue full, skipped: {}", description);
+        }
+    }
+
+    int refreshOlderThan(LocalDateTime cutoff) {
+        Set<String> stale = new HashSet<>(categoryFacetRepository.findCategoryIdsUpdatedBefore(cutoff));
+        if (stale.isEmpty())
+            return 0;
+        List<CategoryTreeSnapshot.CategoryNode> nodes = categoryTreeService.getSnapshot().getNodes().stream()
+                .filter(node -> stale.contains(node.getCategoryId()))
+                .sorted(Comparator.comparingInt((CategoryTreeSnapshot.CategoryNode node) -> node.getAncestors().size()).reversed())
+                .toList();
+        for (CategoryTreeSnapshot.CategoryNode node : nodes)
+            categoryFacetRepository.save(compute(node));
+        return nodes.size();
+    }
+
+    int computeMissing() {
+        Set<String> existing = new HashSet<>(categoryFacetRepository.findAllCategoryIds());
+        int computed = 0;
+        for (CategoryTreeSnapshot.CategoryNode node : categoryTreeService.getSnapshot().getNodes()) {
+            if (existing.contains(node.getCategoryId()))
+                continue;
+            computeAndStore(node.getCategoryId());
+            computed++;
+        }
+        return computed;
+    }
+}
@@ -0,0 +1,143 @@
+package com.apnabaazar.apnabaazar.service;
+
+import com.apnabaazar.apnabaazar.model.categories.CategoryMetadataAllowedValue;
+import com.apnabaazar.apnabaazar.model.categories.CategoryMetadataFieldValues;
+import com.apnabaazar.apnabaazar.repository.CategoryMetadataAllowedValueRepository;
+import com.apnabaazar.apnabaazar.repository.CategoryMetadataFieldValuesRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * Caches the inherited metadata of each category, loaded with one query over the ancestor chain from the
+ * category tree snapshot. Allowed-value sets are interned in a bounded cache, so categories sharing an assignment
+ * share one immutable set. Changing a category's metadata invalidates it and its descendants on every node.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class CategoryMetadataResolver implements MessageListener {
+
+    private static final String CATEGORY_METADATA_CHANNEL = "category_metadata_events";
+
+    private final CategoryMetadataFieldValuesRepository categoryMetadataFieldValuesRepository;
+    private final CategoryMetadataAllowedValueRepository categoryMetadataAllowedValueRepository;
+    private final CategoryTreeService categoryTreeService;
+    private final RedisTemplate<String, String> redisTemplate;
+    private final RedisMessageListenerContainer redisMessageListenerContainer;
+
+    @Value("${apnabaazar.category-metadata-cache.size:10000}")
+    private long cacheSize;
+
+    private Cache<String, ResolvedCategoryMetadata> resolved;
+    private Cache<Set<String>, Set<String>> internedValues;
+
+    @PostConstruct
+    void init() {
+        resolved = Caffeine.newBuilder().maximumSize(cacheSize).build();
+        // Bounded rather than weak: the key is the value itself, so a weakly held value would never be collected
+        internedValues = Caffeine.newBuilder().maximumSize(cacheSize).build();
+        redisMessageListenerContainer.addMessageListener(this, new ChannelTopic(CATEGORY_METADATA_CHANNEL));
+    }
+
+    public ResolvedCategoryMetadata resolve(String categoryId) {
+        return resolved.get(categoryId, this::load);
+    }
+
+    private ResolvedCategoryMetadata load(String categoryId) {
+        CategoryTreeSnapshot.CategoryNode node = categoryTreeService.getNode(categoryId);
+        if (node == null)
+            return new ResolvedCategoryMetadata(List.of());
+
+        List<String> chainIds = new ArrayList<>();
+        chainIds.add(node.getCategoryId());
+        for (int i = node.getAncestors().size() - 1; i >= 0; i--)
+            chainIds.add(node.getAncestors().get(i).getCategoryId());
+
+        // categoryId:fieldId -> values in insertion order
+        Map<String, List<String>> allowedValues = new HashMap<>();
+        for (CategoryMetadataAllowedValue row : categoryMetadataAllowedValueRepository.findByCategoryIdInOrderByIdAsc(chainIds))
+            allowedValues.computeIfAbsent(row.getCategoryId() + ":" + row.getMetadataFieldId(), key -> new ArrayList<>()).add(row.getValue());
+
+        Map<String, List<ResolvedCategoryMetadata.Entry>> byCategory = new HashMap<>();
+        for (CategoryMetadataFieldValues value : categoryMetadataFieldValuesRepository.findByCategoryCategoryIdIn(chainIds)) {
+            String ownerId = value.getId().getCategoryId();
+            String fieldId = value.getCategoryMetadataField().getId();
+            Set<String> values = new LinkedHashSet<>();
+            // Rows the migration has not reached yet still carry their values as CSV
+            if (value.getValues() != null && !value.getValues().isBlank())
+                Arrays.stream(value.getValues().split(",")).map(String::trim).filter(v -> !v.isEmpty()).forEach(values::add);
+            values.addAll(allowedValues.getOrDefault(ownerId + ":" + fieldId, List.of()));
+
+            byCategory.computeIfAbsent(ownerId, id -> new ArrayList<>()).add(new ResolvedCategoryMetadata.Entry(
+                    ownerId,
+                    fieldId,
+                    value.getCategoryMetadataField().getName(),
+                    String.join(",", values),
+                    intern(values)));
+        }
+
+        List<ResolvedCategoryMetadata.Entry> entries = new ArrayList<>();
+        for (String id : chainIds)
+            entries.addAll(byCategory.getOrDefault(id, List.of()));
+        return new ResolvedCategoryMetadata(entries);
+    }
+
+    private Set<String> intern(Set<String> values) {
+        return internedValues.get(Set.copyOf(values), set -> set);
+    }
+
+    /**
+     * Drops the category and every descendant, since they all inherit its assignments. Inside a transaction
+     * this is repeated after commit, so a concurrent read cannot cache the pre-commit values.
+     */
+    public void invalidate(String categoryId) {
+        evictSubtree(categoryId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    evictSubtree(categoryId);
+                    publish(categoryId);
+                }
+            });
+        } else {
+            publish(categoryId);
+        }
+    }
+
+    private void evictSubtree(String categoryId) {
+        CategoryTreeSnapshot.CategoryNode node = categoryTreeService.getSnapshot().getNode(categoryId);
+        if (node == null)
+            resolved.invalidate(categoryId);
+        else
+            resolved.invalidateAll(node.getDescendantIds());
+    }
+
+    private void publish(String categoryId) {
+        try {
+            redisTemplate.convertAndSend(CATEGORY_METADATA_CHANNEL, categoryId);
+        } catch (RuntimeException e) {
+            log.warn("Failed to publish category metadata invalidation for {}: {}", categoryId, e.getMessage());
+        }
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        evictSubtree(new String(message.getBody(), StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,80 @@
+package com.apnabaazar.apnabaazar.service;
+
+import com.apnabaazar.apnabaazar.model.categories.CategoryMetadataAllowedValue;
+import com.apnabaazar.apnabaazar.model.categories.CategoryMetadataFieldValues;
+import com.apnabaazar.apnabaazar.repository.CategoryMetadataAllowedValueRepository;
+import com.apnabaazar.apnabaazar.repository.CategoryMetadataFieldValuesRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.*;
+
+/**
+ * Writes the allowed values of category metadata fields, one row per value.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class CategoryMetadataService {
+
+    private final CategoryMetadataAllowedValueRepository categoryMetadataAllowedValueRepository;
+    private final CategoryMetadataFieldValuesRepository categoryMetadataFieldValuesRepository;
+
+    /**
+     * Inserts one row per value; existing values are left alone rather than rewritten.
+     */
+    public void appendAllowedValues(String categoryId, String fieldId, Collection<String> values) {
+        List<CategoryMetadataAllowedValue> rows = values.stream()
+                .map(value -> CategoryMetadataAllowedValue.builder()
+                        .categoryId(categoryId)
+                        .metadataFieldId(fieldId)
+                        .value(value)
+                        .build())
+                .toList();
+        categoryMetadataAllowedValueRepository.saveAll(rows);
+    }
+
+    /**
+     * One of {@code values} that is already allowed for the field in this category, or null if none is.
+     */
+    public String findExistingValue(String categoryId, String fieldId, Collection<String> values) {
+        return categoryMetadataAllowedValueRepository.findByCategoryIdAndMetadataFieldIdAndValueIn(categoryId, fieldId, values)
+                .stream()
+                .map(CategoryMetadataAllowedValue::getValue)
+                .findFirst()
+                .orElse(null);
+    }
+
+    /**
+     * Moves a row's legacy comma-joined values into the value table and empties the CSV column.
+     * Returns false if there was nothing to migrate.
+     */
+    @Transactional
+    public boolean migrateLegacyValues(CategoryMetadataFieldValues fieldValues) {
+        String csv = fieldValues.getValues();
+        if (csv == null || csv.isBlank())
+            return false;
+
+        String categoryId = fieldValues.getId().getCategoryId();
+        String fieldId = fieldValues.getId().getCategoryMetadataFieldId();
+        Set<String> legacyValues = new LinkedHashSet<>();
+        for (String value : csv.split(",")) {
+            if (!value.trim().isEmpty())
+                legacyValues.add(value.trim());
+        }
+        // A retried migration may find some values already moved
+        categoryMetadataAllowedValueRepository.findByCategoryIdAndMetadataFieldIdAndValueIn(categoryId, fieldId, legacyValues)
+                .forEach(existing -> legacyValues.remove(existing.getValue()));
+        appendAllowedValues(categoryId, fieldId, legacyValues);
+
+        fieldValues.setValues("");
+        categoryMetadataFieldValuesRepository.save(fieldValues);
+        return true;
+    }
+
+    public List<CategoryMetadataFieldValues> findUnmigrated() {
+        return categoryMetadataFieldValuesRepository.findByValuesNot("");
+    }
+}
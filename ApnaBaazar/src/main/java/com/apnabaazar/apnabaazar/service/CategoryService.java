@@ -3,12 +3,10 @@ package com.apnabaazar.apnabaazar.service;
 import com.apnabaazar.apnabaazar.exceptions.*;
 import com.apnabaazar.apnabaazar.model.categories.Category;
 import com.apnabaazar.apnabaazar.model.categories.CategoryMetadataField;
-import com.apnabaazar.apnabaazar.model.categories.CategoryMetadataFieldValues;
 import com.apnabaazar.apnabaazar.model.dto.category_dto.CategoryDTO;
 import com.apnabaazar.apnabaazar.model.dto.category_dto.CategoryMetadataFieldValueDTO;
 import com.apnabaazar.apnabaazar.model.dto.category_dto.CategoryResponseDTO;
 import com.apnabaazar.apnabaazar.repository.CategoryMetadataFieldRepository;
-import com.apnabaazar.apnabaazar.repository.CategoryMetadataFieldValuesRepository;
 import com.apnabaazar.apnabaazar.repository.CategoryRepository;
 import com.apnabaazar.apnabaazar.repository.ProductRepository;
 import lombok.RequiredArgsConstructor;
@@ -29,32 +27,42 @@ public class CategoryService {
     private final CategoryRepository categoryRepository;
     private final ProductRepository productRepository;
     private final CategoryMetadataFieldRepository categoryMetadataFieldRepository;
-    private final CategoryMetadataFieldValuesRepository categoryMetadataFieldValuesRepository;
     private final MessageSource messageSource;
+    private final CategoryTreeService categoryTreeService;
+    private final CategoryMetadataResolver categoryMetadataResolver;
 
     boolean isDuplicateInRoot(String categoryName) {
         log.debug("Checking for duplicate root category with name: {}", categoryName);
-        return categoryRepository.findByParentCategory_CategoryId(null)
+        return categoryTreeService.getSnapshot().getRoots()
                 .stream()
                 .anyMatch(cat -> cat.getName().equalsIgnoreCase(categoryName));
     }
 
     boolean isDuplicateInSiblings(Category parent, String categoryName) {
         log.debug("Checking for duplicate category '{}' among siblings of parent category ID: {}", categoryName, parent.getCategoryId());
-        return categoryRepository.findByParentCategory_CategoryId(parent.getCategoryId())
+        return getNode(parent).getChildren()
                 .stream()
                 .anyMatch(cat -> cat.getName().equalsIgnoreCase(categoryName));
     }
 
     boolean isDuplicateInHierarchy(Category parent, String categoryName) {
         log.debug("Checking for '{}' in parent hierarchy", categoryName);
-        while (parent != null) {
-            if (parent.getName().equalsIgnoreCase(categoryName)) {
-                return true;
-            }
-            parent = parent.getParentCategory();
-        }
-        return false;
+        if (parent == null)
+            return false;
+        CategoryTreeSnapshot.CategoryNode node = getNode(parent);
+        return node.getName().equalsIgnoreCase(categoryName)
+                || node.getAncestors().stream().anyMatch(ancestor -> ancestor.getName().equalsIgnoreCase(categoryName));
+    }
+
+    /**
+     * Snapshot node of a category loaded from the database; hierarchy questions go to the node instead of
+     * walking lazy parent and child associations.
+     */
+    CategoryTreeSnapshot.CategoryNode getNode(Category category) {
+        CategoryTreeSnapshot.CategoryNode node = categoryTreeService.getNode(category.getCategoryId());
+        if (node == null)
+            throw new CategoryNotFoundException(messageSource.getMessage("category.not.found", new Object[]{category.getCategoryId()}, LocaleContextHolder.getLocale()));
+        return node;
     }
 
     private boolean isParentCategoryAssociatedWithProduct(Category parent) {
@@ -68,22 +76,57 @@ public class CategoryService {
                 .name(name)
                 .parentCategory(parent)
                 .build();
+        // The id is generated on insert, so the path is written in a second step
+        category = categoryRepository.save(category);
+        category.setPath((parent == null ? "/" : getPath(parent)) + category.getCategoryId() + "/");
         categoryRepository.save(category);
+        categoryTreeService.refresh();
     }
 
-    boolean isDuplicateInDescendants(Category parent, String updatedName) {
-        log.debug("Checking if name '{}' exists in descendants of category ID: {}", updatedName, parent.getCategoryId());
-        if (parent.getSubCategories().isEmpty())
-            return false;
+    /**
+     * Materialized path of the category, derived from the tree snapshot for rows the backfill has not reached.
+     */
+    String getPath(Category category) {
+        if (category.getPath() != null)
+            return category.getPath();
+        return buildPath(getNode(category));
+    }
 
-        for (Category child : parent.getSubCategories()) {
-            if (child.getName().equals(updatedName))
-                return true;
+    static String buildPath(CategoryTreeSnapshot.CategoryNode node) {
+        StringBuilder path = new StringBuilder("/");
+        for (CategoryTreeSnapshot.CategoryNode ancestor : node.getAncestors())
+            path.append(ancestor.getCategoryId()).append('/');
+        return path.append(node.getCategoryId()).append('/').toString();
+    }
 
-            if (isDuplicateInDescendants(child, updatedName))
-                return true;
+    /**
+     * Stores the materialized path of categories created before the column existed.
+     */
+    public int backfillPaths() {
+        int filled = 0;
+        CategoryTreeSnapshot snapshot = categoryTreeService.getSnapshot();
+        for (Category category : categoryRepository.findByPathIsNull()) {
+            CategoryTreeSnapshot.CategoryNode node = snapshot.getNode(category.getCategoryId());
+            if (node == null)
+                continue;
+            category.setPath(buildPath(node));
+            categoryRepository.save(category);
+            filled++;
         }
-        return false;
+        return filled;
+    }
+
+    public boolean hasCategoriesWithoutPath() {
+        return categoryRepository.existsByPathIsNull();
+    }
+
+    boolean isDuplicateInDescendants(Category parent, String updatedName) {
+        log.debug("Checking if name '{}' exists in descendants of category ID: {}", updatedName, parent.getCategoryId());
+        CategoryTreeSnapshot snapshot = categoryTreeService.getSnapshot();
+        return getNode(parent).getDescendantIds().stream()
+                .skip(1)
+                .map(snapshot::getNode)
+                .anyMatch(child -> child != null && child.getName().equals(updatedName));
     }
 
     public void validateNewCategoryName(String categoryName, Category parent) {
@@ -132,15 +175,16 @@ public class CategoryService {
         responseDTO.setCategoryId(category.getCategoryId());
         responseDTO.setName(category.getName());
 
-        if (category.getParentCategory() != null)
+        CategoryTreeSnapshot.CategoryNode node = getNode(category);
+        if (node.getParentId() != null)
             responseDTO.setParentHierarchy(buildParentHierarchy(category));
 
-        if (!category.getSubCategories().isEmpty()) {
-            List<CategoryDTO> childrenDTOs = category.getSubCategories().stream()
+        if (!node.isLeaf()) {
+            List<CategoryDTO> childrenDTOs = node.getChildren().stream()
                     .map(child -> CategoryDTO.builder()
                             .categoryName(child.getName())
                             .categoryId(child.getCategoryId())
-                            .parentId(category.getCategoryId())
+                            .parentId(node.getCategoryId())
                             .build())
                     .toList();
             responseDTO.setChildren(childrenDTOs);
@@ -154,46 +198,26 @@ public class CategoryService {
 
     List<CategoryMetadataFieldValueDTO> getAllMetadataFieldsFromHierarchy(Category category) {
         log.debug("Fetching metadata fields from hierarchy for category ID: {}", category.getCategoryId());
-        List<CategoryMetadataFieldValueDTO> metadataDTOs = new ArrayList<>();
-        Category current = category;
-
-        while (current != null) {
-            List<CategoryMetadataFieldValues> metadataValues = categoryMetadataFieldValuesRepository.findByCategory(current);
-            if (metadataValues != null && !metadataValues.isEmpty()) {
-                metadataDTOs.addAll(
-                        metadataValues.stream()
-                                .map(value -> {
-                                    CategoryMetadataFieldValueDTO dto = new CategoryMetadataFieldValueDTO();
-                                    dto.setFieldId(value.getCategoryMetadataField().getId());
-                                    dto.setFieldName(value.getCategoryMetadataField().getName());
-                                    dto.setValues(value.getValues());
-                                    return dto;
-                                })
-                                .toList()
-                );
-            }
-            current = current.getParentCategory();
-        }
-
-        return metadataDTOs;
+        return categoryMetadataResolver.resolve(category.getCategoryId()).getEntries().stream()
+                .map(entry -> {
+                    CategoryMetadataFieldValueDTO dto = new CategoryMetadataFieldValueDTO();
+                    dto.setFieldId(entry.getFieldId());
+                    dto.setFieldName(entry.getFieldName());
+                    dto.setValues(entry.getValues());
+                    return dto;
+                })
+                .toList();
     }
 
     List<CategoryDTO> buildParentHierarchy(Category category) {
         log.debug("Building parent hierarchy for category ID: {}", category.getCategoryId());
-        List<CategoryDTO> hierarchy = new ArrayList<>();
-        Category current = category.getParentCategory();
-
-        while (current != null) {
-            CategoryDTO parentDTO = CategoryDTO.builder()
-                    .categoryName(current.getName())
-                    .parentId(current.getParentCategory() != null ?
-                            current.getParentCategory().getCategoryId() : null)
-                    .categoryId(current.getCategoryId())
-                    .build();
-            hierarchy.add(0, parentDTO);
-            current = current.getParentCategory();
-        }
-        return hierarchy;
+        return getNode(category).getAncestors().stream()
+                .map(ancestor -> CategoryDTO.builder()
+                        .categoryName(ancestor.getName())
+                        .parentId(ancestor.getParentId())
+                        .categoryId(ancestor.getCategoryId())
+                        .build())
+                .toList();
     }
 
     CategoryMetadataField fetchMetadataField(String fieldId, Locale locale) {
@@ -235,42 +259,12 @@ public class CategoryService {
 
     void validateLeafCategory(Category category) {
         log.debug("Validating if category ID: {} is a leaf category", category.getCategoryId());
-        if (!category.getSubCategories().isEmpty())
+        if (!getNode(category).isLeaf())
             throw new InvalidLeafCategoryException(messageSource.getMessage("category.not.leaf", new Object[]{category.getName()}, LocaleContextHolder.getLocale()));
     }
 
     Map<String, String> getCategoryMetadataFilters(Category category) {
         log.debug("Generating metadata filters for category ID: {}", category.getCategoryId());
-        Map<String, String> metadataFilters = new HashMap<>();
-        Category current = category;
-
-        while (current != null) {
-            List<CategoryMetadataFieldValues> fieldValues = categoryMetadataFieldValuesRepository.findByCategory(current);
-            for (CategoryMetadataFieldValues fieldValue : fieldValues) {
-                String fieldName = fieldValue.getCategoryMetadataField().getName();
-                String values = fieldValue.getValues();
-                metadataFilters.putIfAbsent(fieldName, values);
-            }
-            current = current.getParentCategory();
-        }
-        return metadataFilters;
-    }
-
-    List<String> getAllChildCategoriesIds(Category category) {
-        log.debug("Fetching all child category IDs for category ID: {}", category.getCategoryId());
-        List<String> categoryIds = new ArrayList<>();
-        categoryIds.add(category.getCategoryId());
-
-        Queue<Category> queue = new LinkedList<>();
-        queue.add(category);
-
-        while (!queue.isEmpty()) {
-            Category current = queue.poll();
-            for (Category child : current.getSubCategories()) {
-                categoryIds.add(child.getCategoryId());
-                queue.add(child);
-            }
-        }
-        return categoryIds;
+        return categoryMetadataResolver.resolve(category.getCategoryId()).getFilters();
     }
 }
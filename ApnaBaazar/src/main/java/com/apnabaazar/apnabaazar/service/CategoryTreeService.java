@@ -0,0 +1,96 @@
+package com.apnabaazar.apnabaazar.service;
+
+import com.apnabaazar.apnabaazar.repository.CategoryRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Holds the current {@link CategoryTreeSnapshot}. Readers always see a complete tree; category changes build a
+ * new snapshot after commit and swap it in atomically, and other nodes are told to reload over Redis pub/sub.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class CategoryTreeService implements MessageListener {
+
+    private static final String CATEGORY_TREE_CHANNEL = "category_tree_events";
+
+    private final CategoryRepository categoryRepository;
+    private final RedisTemplate<String, String> redisTemplate;
+    private final RedisMessageListenerContainer redisMessageListenerContainer;
+
+    private final AtomicReference<CategoryTreeSnapshot> snapshot = new AtomicReference<>();
+    private final AtomicLong versions = new AtomicLong();
+
+    @PostConstruct
+    void init() {
+        redisMessageListenerContainer.addMessageListener(this, new ChannelTopic(CATEGORY_TREE_CHANNEL));
+    }
+
+    public CategoryTreeSnapshot getSnapshot() {
+        CategoryTreeSnapshot current = snapshot.get();
+        return current != null ? current : reload();
+    }
+
+    /**
+     * Node for {@code categoryId}, reloading once if it is missing (e.g. created on another node whose
+     * notification has not arrived yet). Returns null if the category does not exist.
+     */
+    public CategoryTreeSnapshot.CategoryNode getNode(String categoryId) {
+        CategoryTreeSnapshot.CategoryNode node = getSnapshot().getNode(categoryId);
+        return node != null ? node : reload().getNode(categoryId);
+    }
+
+    public CategoryTreeSnapshot reload() {
+        CategoryTreeSnapshot next = new CategoryTreeSnapshot(versions.incrementAndGet(), categoryRepository.findAllTreeRows());
+        // Concurrent reloads may finish out of order; never replace a newer snapshot with an older one
+        snapshot.accumulateAndGet(next, (current, candidate) ->
+                current == null || candidate.getVersion() > current.getVersion() ? candidate : current);
+        log.debug("Category tree snapshot v{} loaded with {} categories", next.getVersion(), next.getNodes().size());
+        return snapshot.get();
+    }
+
+    /**
+     * Call after changing categories. Inside a transaction the reload waits for the commit so the new snapshot
+     * never contains uncommitted rows.
+     */
+    public void refresh() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    reloadAndPublish();
+                }
+            });
+        } else {
+            reloadAndPublish();
+        }
+    }
+
+    private void reloadAndPublish() {
+        reload();
+        try {
+            redisTemplate.convertAndSend(CATEGORY_TREE_CHANNEL, "reload");
+        } catch (RuntimeException e) {
+            log.warn("Failed to publish category tree reload: {}", e.getMessage());
+        }
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        // Our own publication comes back too; the extra reload is harmless
+        reload();
+    }
+}
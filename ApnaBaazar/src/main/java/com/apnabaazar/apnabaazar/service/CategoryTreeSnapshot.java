@@ -0,0 +1,103 @@
+package com.apnabaazar.apnabaazar.service;
+
+import lombok.Getter;
+
+import java.util.*;
+
+/**
+ * Immutable view of the whole category hierarchy, built from one query. Every node carries its ancestor chain
+ * and descendant ids, so hierarchy questions are answered without touching the database.
+ */
+public class CategoryTreeSnapshot {
+
+    @Getter
+    private final long version;
+    private final Map<String, CategoryNode> nodes;
+    private final List<CategoryNode> roots;
+
+    @Getter
+    public static class CategoryNode {
+        private final String categoryId;
+        private final String name;
+        private final String parentId;
+        private List<CategoryNode> children;
+        // root first, parent last
+        private List<CategoryNode> ancestors;
+        // this node first, then breadth-first below it
+        private List<String> descendantIds;
+
+        private CategoryNode(String categoryId, String name, String parentId) {
+            this.categoryId = categoryId;
+            this.name = name;
+            this.parentId = parentId;
+        }
+
+        public boolean isLeaf() {
+            return children.isEmpty();
+        }
+    }
+
+    /**
+     * @param rows {categoryId, name, parentId} per category
+     */
+    CategoryTreeSnapshot(long version, List<Object[]> rows) {
+        this.version = version;
+        Map<String, CategoryNode> byId = new HashMap<>();
+        for (Object[] row : rows)
+            byId.put((String) row[0], new CategoryNode((String) row[0], (String) row[1], (String) row[2]));
+
+        Map<String, List<CategoryNode>> childrenById = new HashMap<>();
+        List<CategoryNode> rootNodes = new ArrayList<>();
+        for (CategoryNode node : byId.values()) {
+            if (node.parentId == null || !byId.containsKey(node.parentId))
+                rootNodes.add(node);
+            else
+                childrenById.computeIfAbsent(node.parentId, id -> new ArrayList<>()).add(node);
+        }
+        for (CategoryNode node : byId.values())
+            node.children = List.copyOf(childrenById.getOrDefault(node.categoryId, List.of()));
+
+        // Top-down so each node extends its parent's finished chain
+        Deque<CategoryNode> queue = new ArrayDeque<>(rootNodes);
+        rootNodes.forEach(root -> root.ancestors = List.of());
+        while (!queue.isEmpty()) {
+            CategoryNode node = queue.poll();
+            List<CategoryNode> chain = new ArrayList<>(node.ancestors);
+            chain.add(node);
+            List<CategoryNode> childAncestors = List.copyOf(chain);
+            for (CategoryNode child : node.children) {
+                child.ancestors = childAncestors;
+                queue.add(child);
+            }
+        }
+        for (CategoryNode node : byId.values())
+            node.descendantIds = collectDescendantIds(node);
+
+        this.nodes = Map.copyOf(byId);
+        this.roots = List.copyOf(rootNodes);
+    }
+
+    private static List<String> collectDescendantIds(CategoryNode node) {
+        List<String> ids = new ArrayList<>();
+        Deque<CategoryNode> queue = new ArrayDeque<>();
+        queue.add(node);
+        while (!queue.isEmpty()) {
+            CategoryNode current = queue.poll();
+            ids.add(current.categoryId);
+            queue.addAll(current.children);
+        }
+        return List.copyOf(ids);
+    }
+
+    public CategoryNode getNode(String categoryId) {
+        return nodes.get(categoryId);
+    }
+
+    public List<CategoryNode> getRoots() {
+        return roots;
+    }
+
+    public Collection<CategoryNode> getNodes() {
+        return nodes.values();
+    }
+}
@@ -5,6 +5,7 @@ import com.apnabaazar.apnabaazar.exceptions.*;
 import com.apnabaazar.apnabaazar.mapper.CustomerMapper;
 import com.apnabaazar.apnabaazar.mapper.SellerMapper;
 import com.apnabaazar.apnabaazar.model.categories.Category;
+import com.apnabaazar.apnabaazar.model.categories.CategoryFacet;
 import com.apnabaazar.apnabaazar.model.dto.AddressDTO;
 import com.apnabaazar.apnabaazar.model.dto.AddressUpdateDTO;
 import com.apnabaazar.apnabaazar.model.dto.UpdatePasswordDTO;
@@ -12,13 +13,13 @@ import com.apnabaazar.apnabaazar.model.dto.category_dto.CategoryDTO;
 import com.apnabaazar.apnabaazar.model.dto.category_dto.CategoryFilterDetailsDTO;
 import com.apnabaazar.apnabaazar.model.dto.category_dto.CustomerCategoryResponseDTO;
 import com.apnabaazar.apnabaazar.model.dto.customer_dto.CustomerProfileDTO;
+import com.apnabaazar.apnabaazar.model.dto.product_dto.ProductCursorPageDTO;
 import com.apnabaazar.apnabaazar.model.dto.product_dto.ProductDTO;
 import com.apnabaazar.apnabaazar.model.dto.product_dto.ProductResponseDTO;
 import com.apnabaazar.apnabaazar.model.dto.product_dto.ProductVariationResponseDTO;
 import com.apnabaazar.apnabaazar.model.dto.seller_dto.ProfileUpdateDTO;
 import com.apnabaazar.apnabaazar.model.dto.seller_dto.SellerProfileDTO;
 import com.apnabaazar.apnabaazar.model.products.Product;
-import com.apnabaazar.apnabaazar.model.products.ProductVariation;
 import com.apnabaazar.apnabaazar.model.users.Address;
 import com.apnabaazar.apnabaazar.model.users.Customer;
 import com.apnabaazar.apnabaazar.model.users.Seller;
@@ -62,7 +63,8 @@ public class CustomerService {
     private final UserService userService;
     private final ProductService productService;
     private final CategoryService categoryService;
-    private final S3Service s3Service;
+    private final CategoryTreeService categoryTreeService;
+    private final CategoryFacetService categoryFacetService;
 
 
     @Value("${aws.s3.default-customer-image}")
@@ -71,7 +73,7 @@ public class CustomerService {
     public ResponseEntity<CustomerProfileDTO> getCustomerProfile(UserPrincipal userPrincipal) {
         String email = userPrincipal.getUsername();
         Customer customer = getCustomerByEmail(email);
-        String imageUrl = s3Service.getProfileImageUrl(email, defaultCustomerImage);
+        String imageUrl = userService.getProfileImageUrl(customer, defaultCustomerImage);
         return ResponseEntity.ok(CustomerMapper.toCustomerProfileDTO(customer, imageUrl));
     }
 
@@ -130,17 +132,14 @@ public class CustomerService {
 
     public List<CustomerCategoryResponseDTO> getAllCategories(String categoryId) {
         Locale locale = LocaleContextHolder.getLocale();
-        if (categoryId == null || categoryId.isBlank()) {
-            List<Category> rootCategories = categoryRepository.findByParentCategory_CategoryId(null);
-            return convertToCustomerDTOList(rootCategories);
-        }
+        if (categoryId == null || categoryId.isBlank())
+            return convertToCustomerDTOList(categoryTreeService.getSnapshot().getRoots());
         Category category = categoryService.getCategoryById(categoryId);
-        List<Category> childCategories = category.getSubCategories().stream().toList();
-        return convertToCustomerDTOList(childCategories);
+        return convertToCustomerDTOList(categoryService.getNode(category).getChildren());
     }
 
 
-    private List<CustomerCategoryResponseDTO> convertToCustomerDTOList(List<Category> categories) {
+    private List<CustomerCategoryResponseDTO> convertToCustomerDTOList(List<CategoryTreeSnapshot.CategoryNode> categories) {
         return categories.stream()
                 .map(cat -> {
                     CustomerCategoryResponseDTO dto = new CustomerCategoryResponseDTO();
@@ -154,34 +153,17 @@ public class CustomerService {
 
     public CategoryFilterDetailsDTO getCategoryFilters(String categoryId) {
         Category category = categoryService.getCategoryById(categoryId);
-        List<String> categoryIds = categoryService.getAllChildCategoriesIds(category);
         Map<String, String> metadataFilters = categoryService.getCategoryMetadataFilters(category);
-        List<Product> products = productRepository.findByCategoryCategoryIdIn(categoryIds);
-
-        List<String> brands = products.stream().map(Product::getBrand).distinct().sorted().toList();
-
-        double minPrice = Double.MAX_VALUE;
-        double maxPrice = 0.0;
-
-        for (Product product : products) {
-            for (ProductVariation variation : product.getVariations()) {
-                if (variation.isActive() && variation.getPrice() != null) {
-                    minPrice = Math.min(minPrice, variation.getPrice());
-                    maxPrice = Math.max(maxPrice, variation.getPrice());
-                }
-            }
-        }
-        //case when no products or variations are found
-        if (minPrice == Double.MAX_VALUE) {
-            minPrice = 0.0;
-        }
+        CategoryFacet facet = categoryFacetService.getFacet(categoryId);
 
         return CategoryFilterDetailsDTO.builder()
                 .categoryName(category.getName())
                 .metadataFilters(metadataFilters)
-                .brands(brands)
-                .minPrice(minPrice)
-                .maxPrice(maxPrice)
+                .metadataValueCounts(facet.getMetadataValueCounts())
+                .brands(facet.getBrands())
+                //case when no products or variations are found
+                .minPrice(facet.getMinPrice() != null ? facet.getMinPrice() : 0.0)
+                .maxPrice(facet.getMaxPrice() != null ? facet.getMaxPrice() : 0.0)
                 .build();
     }
 
@@ -193,13 +175,19 @@ public class CustomerService {
 
     public List<ProductResponseDTO> getAllProducts(String categoryId, Map<String, String> filters, int page, int size, String sort, String direction, UserPrincipal userPrincipal) {
         Category category = categoryService.getCategoryById(categoryId);
-        List<String> childCategories = categoryService.getAllChildCategoriesIds(category);
         Sort.Direction sortDirection = direction.equalsIgnoreCase("desc") ? Sort.Direction.DESC : Sort.Direction.ASC;
         Pageable pageable = PageRequest.of(page, size, Sort.by(sortDirection, sort));
-        Specification<Product> spec = ProductSpecification.withCustomerFilters(childCategories, filters);
+        Specification<Product> spec = ProductSpecification.withCustomerFilters(categoryService.getPath(category), filters);
         return productService.buildProductResponseDTOs(pageable, spec, productRepository);
     }
 
+    public ProductCursorPageDTO getAllProducts(String categoryId, Map<String, String> filters, String cursor, int size, String sort, String direction) {
+        Category category = categoryService.getCategoryById(categoryId);
+        Sort.Direction sortDirection = direction.equalsIgnoreCase("desc") ? Sort.Direction.DESC : Sort.Direction.ASC;
+        Specification<Product> spec = ProductSpecification.withCustomerFilters(categoryService.getPath(category), filters);
+        return productService.buildProductCursorPage(spec, sort, sortDirection, size, cursor);
+    }
+
     public List<ProductResponseDTO> getSimilarProducts(String productId, int page, int size, String sort, String direction) {
         Product product = getProductById(productId);
 
@@ -216,6 +204,18 @@ public class CustomerService {
         return productService.buildProductResponseDTOs(pageable, spec, productRepository);
     }
 
+    public ProductCursorPageDTO getSimilarProducts(String productId, String cursor, int size, String sort, String direction) {
+        Product product = getProductById(productId);
+
+        if (!product.isActive()) {
+            throw new ProductNotFoundException("Product is inactive and cannot be used.");
+        }
+
+        Specification<Product> spec = ProductSpecification.withSimilarityFilters(productId, product.getCategory().getCategoryId());
+        Sort.Direction sortDirection = direction.equalsIgnoreCase("desc") ? Sort.Direction.DESC : Sort.Direction.ASC;
+        return productService.buildProductCursorPage(spec, sort, sortDirection, size, cursor);
+    }
+
     private Product getProductById(String productId) {
         return productRepository.findById(productId)
                 .orElseThrow(() -> new ProductNotFoundException("Product not found with ID: " + productId));
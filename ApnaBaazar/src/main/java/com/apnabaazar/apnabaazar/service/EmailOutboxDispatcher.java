@@ -0,0 +1,170 @@
+package com.apnabaazar.apnabaazar.service;
+
+import com.apnabaazar.apnabaazar.enums.EmailStatus;
+import com.apnabaazar.apnabaazar.model.email.EmailOutbox;
+import com.apnabaazar.apnabaazar.repository.EmailOutboxRepository;
+import jakarta.mail.MessagingException;
+import jakarta.mail.Transport;
+import jakarta.mail.internet.MimeMessage;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.mail.javamail.MimeMessageHelper;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Drains the email outbox. Due rows are claimed by pushing their next attempt past a lease, so a crashed
+ * dispatcher's batch is picked up again once the lease runs out. Each claimed batch is sent on the bounded
+ * mail executor over a pooled SMTP connection, one message at a time so a rejected message only fails itself.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class EmailOutboxDispatcher {
+
+    private final EmailOutboxRepository emailOutboxRepository;
+    private final JavaMailSender emailSender;
+    private final ThreadPoolTaskExecutor mailExecutor;
+    private final TransactionTemplate transactionTemplate;
+    private final SmtpConnectionPool smtpConnectionPool;
+    private final TaskScheduler taskScheduler;
+
+    private final AtomicBoolean dispatchRequested = new AtomicBoolean();
+
+    @Value("${email.outbox.batch-size:50}")
+    private int batchSize;
+
+    @Value("${email.outbox.max-attempts:8}")
+    private int maxAttempts;
+
+    @Value("${email.outbox.backoff:30000}")
+    private long backoffMillis;
+
+    @Value("${email.outbox.max-backoff:3600000}")
+    private long maxBackoffMillis;
+
+    @Value("${email.outbox.lease:300000}")
+    private long leaseMillis;
+
+    @Value("${email.outbox.coalesce-window:200}")
+    private long coalesceWindowMillis;
+
+    /**
+     * Runs a dispatch shortly after new mail is committed instead of waiting for the next poll. Requests arriving
+     * within the window share one run, so a burst of admin actions goes out as one batch over one connection.
+     */
+    public void requestDispatch() {
+        if (!dispatchRequested.compareAndSet(false, true))
+            return;
+        taskScheduler.schedule(() -> {
+            dispatchRequested.set(false);
+            dispatch();
+        }, Instant.now().plusMillis(coalesceWindowMillis));
+    }
+
+    @Scheduled(fixedDelayString = "${email.outbox.poll-interval:2000}")
+    public void dispatch() {
+        // Claim no more batches than the mail pool can take right now
+        int freeSlots = mailExecutor.getMaxPoolSize() - mailExecutor.getActiveCount();
+        for (int i = 0; i < freeSlots; i++) {
+            List<EmailOutbox> batch = claimBatch();
+            if (batch.isEmpty())
+                return;
+            try {
+                mailExecutor.execute(() -> sendBatch(batch));
+            } catch (TaskRejectedException e) {
+                // Rows stay claimed until the lease runs out and are retried then
+                log.warn("Mail executor saturated, deferring {} outbox emails", batch.size());
+                return;
+            }
+        }
+    }
+
+    private List<EmailOutbox> claimBatch() {
+        return transactionTemplate.execute(status -> {
+            Instant now = Instant.now();
+            List<EmailOutbox> batch = emailOutboxRepository.lockDueBatch(now, batchSize);
+            for (EmailOutbox email : batch) {
+                email.setAttempts(email.getAttempts() + 1);
+                email.setNextAttemptAt(now.plusMillis(leaseMillis));
+            }
+            return batch;
+        });
+    }
+
+    void sendBatch(List<EmailOutbox> batch) {
+        Transport transport = null;
+        try {
+            for (int i = 0; i < batch.size(); i++) {
+                EmailOutbox email = batch.get(i);
+                if (transport == null) {
+                    try {
+                        transport = smtpConnectionPool.borrow();
+                    } catch (MessagingException e) {
+                        // The server is unreachable, so don't retry the connection for every remaining message
+                        log.error("Could not connect to SMTP server", e);
+                        batch.subList(i, batch.size()).forEach(pending -> markFailedAttempt(pending, e));
+                        break;
+                    }
+                }
+                try {
+                    MimeMessage message = toMimeMessage(email);
+                    transport.sendMessage(message, message.getAllRecipients());
+                    email.setStatus(EmailStatus.SENT);
+                    email.setSentAt(Instant.now());
+                    email.setLastError(null);
+                } catch (MessagingException e) {
+                    // One bad message must not fail the batch; only drop the connection if it is actually broken
+                    markFailedAttempt(email, e);
+                    if (transport != null && !transport.isConnected()) {
+                        smtpConnectionPool.discard(transport);
+                        transport = null;
+                    }
+                }
+            }
+        } finally {
+            if (transport != null)
+                smtpConnectionPool.release(transport);
+        }
+
+        emailOutboxRepository.saveAll(batch);
+        log.debug("Processed outbox batch of {} emails", batch.size());
+    }
+
+    private MimeMessage toMimeMessage(EmailOutbox email) throws MessagingException {
+        MimeMessage message = emailSender.createMimeMessage();
+        // Bodies are plain HTML without attachments or inline parts, so a single-part message is enough
+        MimeMessageHelper helper = new MimeMessageHelper(message, false, StandardCharsets.UTF_8.name());
+        helper.setTo(email.getRecipient());
+        helper.setSubject(email.getSubject());
+        helper.setText(email.getBody(), true);
+        message.saveChanges();
+        return message;
+    }
+
+    private void markFailedAttempt(EmailOutbox email, Exception e) {
+        String error = String.valueOf(e.getMessage());
+        email.setLastError(error.length() > 1000 ? error.substring(0, 1000) : error);
+
+        if (email.getAttempts() >= maxAttempts) {
+            email.setStatus(EmailStatus.FAILED);
+            log.error("Giving up on email {} to {} after {} attempts", email.getId(), email.getRecipient(), email.getAttempts(), e);
+            return;
+        }
+        long backoff = Math.min(maxBackoffMillis, backoffMillis << Math.min(email.getAttempts() - 1, 20));
+        email.setNextAttemptAt(Instant.now().plus(Duration.ofMillis(backoff)));
+        log.warn("Failed to send email {} to {} (attempt {}), retrying in {} ms", email.getId(), email.getRecipient(), email.getAttempts(), backoff);
+    }
+}
@@ -0,0 +1,152 @@
+package com.apnabaazar.apnabaazar.service;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.MessageSource;
+import org.springframework.context.i18n.LocaleContextHolder;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.stereotype.Component;
+import org.springframework.web.util.HtmlUtils;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Minimal HTML email template engine. Templates under {@code templates/email} are read once at startup;
+ * {@code #{key}} placeholders are resolved from the message bundles and the result is split into literal and
+ * {@code ${variable}} segments once per message bundle locale, so rendering is only appending segments into a
+ * reused buffer. Request locales are mapped to a bundle locale, so the set of compiled locales is fixed at startup.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class EmailTemplateEngine {
+
+    private static final String TEMPLATE_LOCATION = "classpath:templates/email/*.html";
+    private static final String BUNDLE_LOCATION = "classpath*:messages_*.properties";
+    private static final Pattern BUNDLE_LANGUAGE = Pattern.compile("messages_([a-z]{2,3})\\.properties");
+    // Locale of the base messages.properties bundle
+    private static final Locale DEFAULT_LOCALE = Locale.ENGLISH;
+    private static final Pattern MESSAGE_PLACEHOLDER = Pattern.compile("#\\{([\\w.-]+)}");
+    private static final Pattern VARIABLE_PLACEHOLDER = Pattern.compile("\\$\\{(\\w+)}");
+    private static final int MAX_RETAINED_BUFFER = 64 * 1024;
+
+    private final MessageSource messageSource;
+
+    private Map<String, String> sources;
+    // bundle locale -> template name -> compiled template; only ever holds the locales found at startup
+    private Map<Locale, Map<String, CompiledTemplate>> compiledByLocale;
+    private final ThreadLocal<StringBuilder> buffers = ThreadLocal.withInitial(() -> new StringBuilder(1024));
+
+    @PostConstruct
+    void loadTemplates() throws IOException {
+        Map<String, String> loaded = new HashMap<>();
+        for (Resource resource : new PathMatchingResourcePatternResolver().getResources(TEMPLATE_LOCATION)) {
+            String filename = Objects.requireNonNull(resource.getFilename());
+            loaded.put(filename.substring(0, filename.length() - ".html".length()),
+                    resource.getContentAsString(StandardCharsets.UTF_8));
+        }
+        sources = Map.copyOf(loaded);
+
+        // Every bundle locale is compiled eagerly, so a missing message key fails startup rather than a send
+        Map<Locale, Map<String, CompiledTemplate>> compiled = new HashMap<>();
+        compiled.put(DEFAULT_LOCALE, compileAll(DEFAULT_LOCALE));
+        for (Resource resource : new PathMatchingResourcePatternResolver().getResources(BUNDLE_LOCATION)) {
+            Matcher matcher = BUNDLE_LANGUAGE.matcher(Objects.requireNonNull(resource.getFilename()));
+            if (matcher.matches())
+                compiled.computeIfAbsent(Locale.of(matcher.group(1)), this::compileAll);
+        }
+        compiledByLocale = Map.copyOf(compiled);
+        log.info("Loaded {} email templates for locales {}", sources.size(), compiledByLocale.keySet());
+    }
+
+    /**
+     * Renders a template in the current request locale. Variable values are HTML-escaped.
+     */
+    public String render(String template, Map<String, ?> variables) {
+        return render(template, LocaleContextHolder.getLocale(), variables);
+    }
+
+    public String render(String template, Locale locale, Map<String, ?> variables) {
+        CompiledTemplate compiled = compiledByLocale.get(bundleLocale(locale)).get(template);
+        if (compiled == null)
+            throw new IllegalArgumentException("Unknown email template: " + template);
+
+        StringBuilder buffer = buffers.get();
+        buffer.setLength(0);
+        compiled.writeTo(buffer, variables);
+        String rendered = buffer.toString();
+        if (buffer.capacity() > MAX_RETAINED_BUFFER)
+            buffers.remove();
+        return rendered;
+    }
+
+    /**
+     * The bundle locale messages for this locale come from: its language if a bundle exists for it, else the default.
+     */
+    Locale bundleLocale(Locale locale) {
+        if (locale != null) {
+            Locale language = Locale.of(locale.getLanguage());
+            if (compiledByLocale.containsKey(language))
+                return language;
+        }
+        return DEFAULT_LOCALE;
+    }
+
+    private Map<String, CompiledTemplate> compileAll(Locale locale) {
+        Map<String, CompiledTemplate> compiled = new HashMap<>();
+        sources.forEach((name, source) -> compiled.put(name, compile(localize(source, locale))));
+        return Map.copyOf(compiled);
+    }
+
+    private String localize(String source, Locale locale) {
+        Matcher matcher = MESSAGE_PLACEHOLDER.matcher(source);
+        StringBuilder localized = new StringBuilder(source.length());
+        while (matcher.find())
+            matcher.appendReplacement(localized, Matcher.quoteReplacement(messageSource.getMessage(matcher.group(1), null, locale)));
+        matcher.appendTail(localized);
+        return localized.toString();
+    }
+
+    private static CompiledTemplate compile(String source) {
+        List<String> literals = new ArrayList<>();
+        List<String> variables = new ArrayList<>();
+        Matcher matcher = VARIABLE_PLACEHOLDER.matcher(source);
+        int position = 0;
+        while (matcher.find()) {
+            literals.add(source.substring(position, matcher.start()));
+            variables.add(matcher.group(1));
+            position = matcher.end();
+        }
+        literals.add(source.substring(position));
+        return new CompiledTemplate(literals.toArray(String[]::new), variables.toArray(String[]::new));
+    }
+
+    /**
+     * literals[i] is followed by variables[i]; there is always one more literal than variables.
+     */
+    private static final class CompiledTemplate {
+        private final String[] literals;
+        private final String[] variables;
+
+        private CompiledTemplate(String[] literals, String[] variables) {
+            this.literals = literals;
+            this.variables = variables;
+        }
+
+        void writeTo(StringBuilder buffer, Map<String, ?> values) {
+            for (int i = 0; i < variables.length; i++) {
+                buffer.append(literals[i]);
+                Object value = values.get(variables[i]);
+                if (value != null)
+                    buffer.append(HtmlUtils.htmlEscape(value.toString()));
+            }
+            buffer.append(literals[literals.length - 1]);
+        }
+    }
+}
@@ -0,0 +1,191 @@
+package com.apnabaazar.apnabaazar.service;
+
+import com.apnabaazar.apnabaazar.enums.ImageDerivative;
+import com.apnabaazar.apnabaazar.repository.ProductVariationRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Generates downscaled JPEG derivatives of product images off the request thread. The original is read back
+ * from S3, so the pipeline needs nothing from the upload request and can be re-run for existing images.
+ * Images whose derivatives were written are recorded on their variation; readers fall back to the original otherwise.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ImageDerivativeService {
+
+    private final S3Service s3Service;
+    private final ThreadPoolTaskExecutor imageExecutor;
+    private final ProductVariationRepository productVariationRepository;
+
+    @Value("${aws.s3.derivatives.jpeg-quality:0.8}")
+    private float jpegQuality;
+
+    @Value("${aws.s3.derivatives.max-pixels:40000000}")
+    private long maxPixels;
+
+    /**
+     * Queues derivative generation once the current transaction commits, so the variation row exists when the
+     * result is recorded. A rejected image keeps being served at its original URL.
+     */
+    public void generateDerivativesAfterCommit(String variationId, List<String> keys) {
+        Runnable submit = () -> keys.forEach(key -> {
+            try {
+                imageExecutor.execute(() -> generateDerivatives(variationId, key));
+            } catch (TaskRejectedException e) {
+                log.warn("Image pipeline saturated, skipping derivatives for {}", key);
+            }
+        });
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    submit.run();
+                }
+            });
+        } else {
+            submit.run();
+        }
+    }
+
+    /**
+     * Writes every derivative of the image and records it on the variation. Returns whether all were written.
+     */
+    public boolean generateDerivatives(String variationId, String key) {
+        if (generateDerivatives(key)) {
+            productVariationRepository.markImageDerived(variationId, key);
+            return true;
+        }
+        return false;
+    }
+
+    private boolean generateDerivatives(String key) {
+        try {
+            BufferedImage original;
+            try (InputStream inputStream = s3Service.openObject(key)) {
+                original = readWithinLimit(inputStream, key);
+            }
+            if (original == null)
+                return false;
+            for (ImageDerivative derivative : ImageDerivative.values()) {
+                byte[] jpeg = encodeJpeg(scaleToFit(original, derivative.getMaxDimension()));
+                s3Service.putObject(s3Service.getDerivedImageKey(key, derivative), jpeg, "image/jpeg");
+            }
+            log.debug("Generated image derivatives for {}", key);
+            return true;
+        } catch (Exception e) {
+            log.error("Failed to generate image derivatives for {}: {}", key, e.getMessage(), e);
+            return false;
+        }
+    }
+
+    /**
+     * Decodes the image only after its header shows it fits within the pixel limit, so a small file declaring huge
+     * dimensions cannot exhaust the heap. Returns null for unsupported or oversized images.
+     */
+    private BufferedImage readWithinLimit(InputStream inputStream, String key) throws IOException {
+        try (ImageInputStream imageInput = ImageIO.createImageInputStream(inputStream)) {
+            Iterator<ImageReader> readers = imageInput == null ? Collections.emptyIterator() : ImageIO.getImageReaders(imageInput);
+            if (!readers.hasNext()) {
+                log.warn("Unsupported image format, no derivatives generated for {}", key);
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(imageInput, true, true);
+                long pixels = (long) reader.getWidth(0) * reader.getHeight(0);
+                if (pixels > maxPixels) {
+                    log.warn("Image {} is {}x{}, above the {} pixel limit; no derivatives generated",
+                            key, reader.getWidth(0), reader.getHeight(0), maxPixels);
+                    return null;
+                }
+                return reader.read(0);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    public void deleteDerivatives(String key) {
+        for (ImageDerivative derivative : ImageDerivative.values()) {
+            try {
+                s3Service.deleteObject(s3Service.getDerivedImageKey(key, derivative));
+            } catch (RuntimeException e) {
+                log.warn("Failed to delete {} derivative of {}: {}", derivative, key, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Scales down in halving steps before the final resize, which keeps bilinear filtering from aliasing on
+     * large reductions. Always returns an opaque RGB image, since JPEG has no alpha channel.
+     */
+    private BufferedImage scaleToFit(BufferedImage source, int maxDimension) {
+        double scale = Math.min(1.0, (double) maxDimension / Math.max(source.getWidth(), source.getHeight()));
+        int targetWidth = Math.max(1, (int) Math.round(source.getWidth() * scale));
+        int targetHeight = Math.max(1, (int) Math.round(source.getHeight() * scale));
+
+        BufferedImage current = source;
+        int width = source.getWidth();
+        int height = source.getHeight();
+        do {
+            width = Math.max(targetWidth, width / 2);
+            height = Math.max(targetHeight, height / 2);
+            current = resize(current, width, height);
+        } while (width != targetWidth || height != targetHeight);
+        return current;
+    }
+
+    private BufferedImage resize(BufferedImage source, int width, int height) {
+        BufferedImage target = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = target.createGraphics();
+        try {
+            graphics.setColor(Color.WHITE);
+            graphics.fillRect(0, 0, width, height);
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            graphics.drawImage(source, 0, 0, width, height, null);
+        } finally {
+            graphics.dispose();
+        }
+        return target;
+    }
+
+    private byte[] encodeJpeg(BufferedImage image) throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        try (ImageOutputStream imageOutput = ImageIO.createImageOutputStream(output)) {
+            writer.setOutput(imageOutput);
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(jpegQuality);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+        return output.toByteArray();
+    }
+}
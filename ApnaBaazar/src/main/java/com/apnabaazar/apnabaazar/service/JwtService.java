@@ -1,12 +1,18 @@
 package com.apnabaazar.apnabaazar.service;
 
+import com.apnabaazar.apnabaazar.config.UserPrincipal;
 import com.apnabaazar.apnabaazar.exceptions.ExpiredTokenException;
 import com.apnabaazar.apnabaazar.exceptions.InvalidTokenException;
+import com.apnabaazar.apnabaazar.model.token.VerifiedToken;
+import com.apnabaazar.apnabaazar.model.users.Role;
+import com.apnabaazar.apnabaazar.model.users.User;
 import com.apnabaazar.apnabaazar.repository.AuthTokenRepository;
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.io.Decoders;
 import io.jsonwebtoken.security.Keys;
 import io.jsonwebtoken.security.SignatureException;
+import jakarta.annotation.PostConstruct;
+import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.RequiredArgsConstructor;
 import lombok.Setter;
@@ -17,6 +23,7 @@ import org.springframework.stereotype.Service;
 import javax.crypto.SecretKey;
 import java.time.Instant;
 import java.util.Date;
+import java.util.List;
 
 @Getter
 @Setter
@@ -39,26 +46,50 @@ public class JwtService {
     @Value("${jwt.expiration.reset}")
     private long resetPasswordTokenExpirationTime;
 
+    @Value("${jwt.stateless-access-tokens:false}")
+    private boolean statelessAccessTokens;
+
 
     private final AuthTokenRepository authTokenRepository;
+    private final SecurityVersionService securityVersionService;
+
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private SecretKey signingKey;
+
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private JwtParser jwtParser;
+
 
+    /**
+     * Decodes the secret and builds the signing key and parser once; both are immutable and thread-safe.
+     */
+    @PostConstruct
+    void init() {
+        byte[] keyBytes = Decoders.BASE64.decode(secretKey);
+        this.signingKey = Keys.hmacShaKeyFor(keyBytes);
+        this.jwtParser = Jwts.parserBuilder()
+                .setSigningKey(signingKey)
+                .build();
+    }
 
     /**
      * Retrieves the signing key from the secret.
      */
     private SecretKey getSigningKey() {
-        byte[] keyBytes = Decoders.BASE64.decode(secretKey);
-        return Keys.hmacShaKeyFor(keyBytes);
+        return signingKey;
     }
 
     /**
-     * Extracts all claims from the token.
+     * Extracts all claims from the token, reusing the claims JwtFilter already verified for this request.
      */
     public Claims extractAllClaims(String token) {
+        VerifiedToken verifiedToken = VerifiedToken.current();
+        if (verifiedToken != null && verifiedToken.matches(token))
+            return verifiedToken.getClaims();
         try {
-            return Jwts.parserBuilder()
-                    .setSigningKey(getSigningKey())
-                    .build()
+            return jwtParser
                     .parseClaimsJws(token)
                     .getBody();
         } catch (ExpiredJwtException e) {
@@ -100,8 +131,14 @@ public class JwtService {
 
 
     public boolean validateToken(String token, String tokenType,String username) {
-        final String email = extractUsername(token);
-        final Claims claims = extractAllClaims(token);
+        return validateToken(extractAllClaims(token), tokenType, username);
+    }
+
+    /**
+     * Validates already verified claims, so callers that parsed the token once don't pay for a second signature check.
+     */
+    public boolean validateToken(Claims claims, String tokenType, String username) {
+        final String email = claims.getSubject();
 
         if (!username.equals(email)) {
             throw new InvalidTokenException("Token does not match the provided user.");
@@ -112,7 +149,7 @@ public class JwtService {
             throw new InvalidTokenException("Token type mismatch. Expected: " + tokenType + ", but found: " + typeFromToken);
         }
 
-        if (isTokenExpired(token)) {
+        if (claims.getExpiration().before(new Date())) {
             throw new ExpiredTokenException("Token has expired.");
         }
 
@@ -142,6 +179,46 @@ public class JwtService {
                 .compact();
     }
 
+    /**
+     * Issues an access token for the user. In stateless mode the token also carries the user's roles and
+     * current security version, so JwtFilter can authenticate it without loading the user.
+     */
+    public String generateAccessToken(User user, String sessionId) {
+        if (!statelessAccessTokens)
+            return generateAccessToken(user.getEmail(), sessionId);
+
+        List<String> roles = user.getRoles().stream()
+                .map(Role::getAuthority)
+                .toList();
+        return Jwts.builder()
+                .setIssuer(sessionId)
+                .setSubject(user.getEmail())
+                .claim("type", "access")
+                .claim("roles", roles)
+                .claim("sv", securityVersionService.currentVersion(user.getEmail()))
+                .setIssuedAt(new Date())
+                .setExpiration(new Date(System.currentTimeMillis() + accessTokenExpirationTime))
+                .signWith(getSigningKey())
+                .compact();
+    }
+
+    /**
+     * Rebuilds the principal from a stateless access token, or returns null when the token has no embedded
+     * roles or was issued under an older security version and must be checked against the database.
+     */
+    public UserPrincipal extractStatelessPrincipal(Claims claims) {
+        if (!statelessAccessTokens)
+            return null;
+        Object roles = claims.get("roles");
+        Number version = claims.get("sv", Number.class);
+        if (!(roles instanceof List<?> roleList) || version == null)
+            return null;
+        String email = claims.getSubject();
+        if (version.longValue() != securityVersionService.currentVersion(email))
+            return null;
+        return new UserPrincipal(email, roleList.stream().map(String::valueOf).toList());
+    }
+
     public String generateRefreshToken(String email) {
         return Jwts.builder()
                 .setSubject(email)
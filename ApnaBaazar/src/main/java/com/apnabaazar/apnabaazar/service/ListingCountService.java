@@ -0,0 +1,88 @@
+package com.apnabaazar.apnabaazar.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PostConstruct;
+import lombok.AllArgsConstructor;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+
+/**
+ * Total row counts for listings that ask for them. Listings themselves are count-free slices; a total is only
+ * computed on request, cached per listing filter and refreshed in the background once it is older than the
+ * refresh interval, so a stale count is served while the new one runs.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ListingCountService {
+
+    private final ThreadPoolTaskExecutor countExecutor;
+
+    @Value("${apnabaazar.listing.count.refresh-after:60000}")
+    private long refreshAfterMillis;
+
+    @Value("${apnabaazar.listing.count.expire-after:600000}")
+    private long expireAfterMillis;
+
+    @Value("${apnabaazar.listing.count.max-entries:1000}")
+    private long maxEntries;
+
+    private Cache<String, CachedCount> counts;
+    private final Set<String> refreshing = ConcurrentHashMap.newKeySet();
+
+    @AllArgsConstructor
+    private static class CachedCount {
+        private final long total;
+        private final long computedAt;
+    }
+
+    @PostConstruct
+    void init() {
+        counts = Caffeine.newBuilder()
+                .maximumSize(maxEntries)
+                .expireAfterWrite(Duration.ofMillis(expireAfterMillis))
+                .build();
+    }
+
+    /**
+     * Returns the cached total for {@code key}, counting synchronously only when nothing is cached yet.
+     */
+    public long getTotal(String key, LongSupplier counter) {
+        CachedCount cached = counts.getIfPresent(key);
+        if (cached == null) {
+            long total = counter.getAsLong();
+            counts.put(key, new CachedCount(total, System.currentTimeMillis()));
+            return total;
+        }
+        if (System.currentTimeMillis() - cached.computedAt > refreshAfterMillis && refreshing.add(key))
+            refreshAsync(key, counter);
+        return cached.total;
+    }
+
+    private void refreshAsync(String key, LongSupplier counter) {
+        try {
+            countExecutor.execute(() -> {
+                try {
+                    counts.put(key, new CachedCount(counter.getAsLong(), System.currentTimeMillis()));
+                } catch (RuntimeException e) {
+                    log.warn("Failed to refresh listing count {}: {}", key, e.getMessage());
+                } finally {
+                    refreshing.remove(key);
+                }
+            });
+        } catch (TaskRejectedException e) {
+            // Pool is busy; the stale count is served and a later request retries
+            refreshing.remove(key);
+        }
+    }
+}
@@ -1,12 +1,14 @@
 package com.apnabaazar.apnabaazar.service;
 
+import com.apnabaazar.apnabaazar.enums.ImageDerivative;
 import com.apnabaazar.apnabaazar.exceptions.DuplicateProductException;
+import com.apnabaazar.apnabaazar.exceptions.InvalidCursorException;
 import com.apnabaazar.apnabaazar.exceptions.InvalidProductStateException;
 import com.apnabaazar.apnabaazar.exceptions.InvalidSellerException;
 import com.apnabaazar.apnabaazar.exceptions.ProductNotFoundException;
 import com.apnabaazar.apnabaazar.model.categories.Category;
-import com.apnabaazar.apnabaazar.model.categories.CategoryMetadataFieldValues;
 import com.apnabaazar.apnabaazar.model.dto.category_dto.CategoryDTO;
+import com.apnabaazar.apnabaazar.model.dto.product_dto.ProductCursorPageDTO;
 import com.apnabaazar.apnabaazar.model.dto.product_dto.ProductDTO;
 import com.apnabaazar.apnabaazar.model.dto.product_dto.ProductResponseDTO;
 import com.apnabaazar.apnabaazar.model.dto.product_dto.ProductUpdateDTO;
@@ -14,22 +16,25 @@ import com.apnabaazar.apnabaazar.model.dto.product_dto.ProductVariationResponseD
 import com.apnabaazar.apnabaazar.model.products.Product;
 import com.apnabaazar.apnabaazar.model.products.ProductVariation;
 import com.apnabaazar.apnabaazar.model.users.Seller;
-import com.apnabaazar.apnabaazar.repository.CategoryMetadataFieldValuesRepository;
 import com.apnabaazar.apnabaazar.repository.ProductRepository;
+import com.apnabaazar.apnabaazar.specification.ProductCursor;
+import com.apnabaazar.apnabaazar.specification.ProductSpecification;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.PropertyAccessorFactory;
 import org.springframework.context.MessageSource;
 import org.springframework.context.i18n.LocaleContextHolder;
-import org.springframework.data.domain.Page;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.jmx.export.metadata.InvalidMetadataException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.io.IOException;
+import java.time.format.DateTimeParseException;
 import java.util.*;
-import java.util.stream.Collectors;
 
 @Service
 @Transactional
@@ -38,7 +43,7 @@ import java.util.stream.Collectors;
 public class ProductService {
 
     private final ProductRepository productRepository;
-    private final CategoryMetadataFieldValuesRepository categoryMetadataFieldValuesRepository;
+    private final CategoryMetadataResolver categoryMetadataResolver;
     private final S3Service s3Service;
     private final MessageSource messageSource;
 
@@ -125,8 +130,7 @@ public class ProductService {
         return product.getVariations().stream()
                 .map(variation -> {
                     String primaryImageUrl = getPrimaryImageUrl(variation.getPrimaryImageName());
-                    List<String> secondaryImageUrls = s3Service.getSecondaryImageUrls(
-                            product.getId(), variation.getProductVariationId());
+                    List<String> secondaryImageUrls = getSecondaryImageUrls(product.getId(), variation);
 
                     return ProductVariationResponseDTO.builder()
                             .metadata(variation.getMetadata())
@@ -134,7 +138,10 @@ public class ProductService {
                             .price(variation.getPrice())
                             .active(variation.isActive())
                             .primaryImageUrl(primaryImageUrl)
+                            .primaryImageThumbnailUrl(getDerivedImageUrl(variation, variation.getPrimaryImageName(), ImageDerivative.THUMBNAIL))
+                            .primaryImageMediumUrl(getDerivedImageUrl(variation, variation.getPrimaryImageName(), ImageDerivative.MEDIUM))
                             .secondaryImageUrl(secondaryImageUrls)
+                            .secondaryImageThumbnailUrl(getSecondaryImageThumbnailUrls(variation))
                             .build();
                 })
                 .toList();
@@ -142,9 +149,53 @@ public class ProductService {
 
     List<ProductResponseDTO> buildProductResponseDTOs(Pageable pageable, Specification<Product> spec, ProductRepository productRepository) {
         log.debug("Building product response DTOs with specification and pagination");
-        Page<Product> productsPage = productRepository.findAll(spec, pageable);
+        Slice<Product> productsSlice = productRepository.findSlice(spec, pageable);
+        return buildProductResponseDTOs(productsSlice.getContent());
+    }
+
+    /**
+     * Keyset variant of {@link #buildProductResponseDTOs(Pageable, Specification, ProductRepository)}: fetches the
+     * rows after {@code cursor} in (sort, id) order, so every page costs the same regardless of depth.
+     * One extra row is read to know whether another page follows; no count query is run.
+     */
+    ProductCursorPageDTO buildProductCursorPage(Specification<Product> spec, String sort, Sort.Direction direction, int size, String cursor) {
+        Locale locale = LocaleContextHolder.getLocale();
+        if (size < 1)
+            throw new InvalidCursorException(messageSource.getMessage("product.cursor.size.invalid", null, locale));
+        if (!ProductCursor.SORT_FIELDS.contains(sort))
+            throw new InvalidCursorException(messageSource.getMessage("product.cursor.sort.unsupported", new Object[]{sort}, locale));
+
+        ProductCursor after = null;
+        if (cursor != null && !cursor.isEmpty()) {
+            try {
+                after = ProductCursor.decode(cursor);
+            } catch (IllegalArgumentException | DateTimeParseException e) {
+                log.warn("Rejected product cursor: {}", e.getMessage());
+                throw new InvalidCursorException(messageSource.getMessage("product.cursor.invalid", null, locale));
+            }
+            if (!after.getSort().equals(sort) || after.getDirection() != direction)
+                throw new InvalidCursorException(messageSource.getMessage("product.cursor.invalid", null, locale));
+        }
+
+        Sort order = "id".equals(sort) ? Sort.by(direction, "id") : Sort.by(direction, sort).and(Sort.by(direction, "id"));
+        List<Product> products = productRepository.findBy(spec.and(ProductSpecification.afterCursor(after)),
+                query -> query.sortBy(order).limit(size + 1).project("seller", "category").all());
 
-        return productsPage.getContent().stream()
+        String nextCursor = null;
+        if (products.size() > size) {
+            products = products.subList(0, size);
+            Product last = products.get(size - 1);
+            Object lastValue = PropertyAccessorFactory.forDirectFieldAccess(last).getPropertyValue(sort);
+            nextCursor = new ProductCursor(sort, direction, last.getId(), (Comparable<?>) lastValue).encode();
+        }
+        return ProductCursorPageDTO.builder()
+                .products(buildProductResponseDTOs(products))
+                .nextCursor(nextCursor)
+                .build();
+    }
+
+    private List<ProductResponseDTO> buildProductResponseDTOs(List<Product> products) {
+        return products.stream()
                 .map(product -> {
                     ProductDTO productDTO = buildProductDTO(product);
                     List<ProductVariationResponseDTO> variationDTOs = buildVariationDTOs(product);
@@ -160,37 +211,64 @@ public class ProductService {
 
     List<ProductDTO> getProductDTOS(Pageable pageable, Specification<Product> spec, ProductRepository productRepository) {
         log.debug("Fetching product DTOs with spec and pageable");
-        Page<Product> productsPage = productRepository.findAll(spec, pageable);
-
-        return productsPage.getContent().stream().map(product -> {
+        return productRepository.findProductSummaries(spec, pageable).stream().map(summary -> {
             CategoryDTO categoryDTO = CategoryDTO.builder()
-                    .categoryId(product.getCategory().getCategoryId())
-                    .categoryName(product.getCategory().getName())
+                    .categoryId(summary.getCategoryId())
+                    .categoryName(summary.getCategoryName())
                     .build();
 
             return ProductDTO.builder()
-                    .productId(product.getId())
-                    .sellerId(product.getSeller().getId())
-                    .name(product.getName())
-                    .brand(product.getBrand())
-                    .description(product.getDescription())
-                    .cancellable(product.isCancellable())
-                    .returnable(product.isReturnable())
-                    .active(product.isActive())
+                    .productId(summary.getProductId())
+                    .sellerId(summary.getSellerId())
+                    .name(summary.getName())
+                    .brand(summary.getBrand())
+                    .description(summary.getDescription())
+                    .cancellable(summary.isCancellable())
+                    .returnable(summary.isReturnable())
+                    .active(summary.isActive())
                     .category(categoryDTO)
                     .build();
         }).toList();
     }
 
+    /**
+     * Public URLs of the variation's secondary images, read from the stored keys. Variations the backfill
+     * has not reached yet still fall back to listing S3.
+     */
+    List<String> getSecondaryImageUrls(String productId, ProductVariation variation) {
+        if (!variation.isSecondaryImagesIndexed())
+            return s3Service.getSecondaryImageUrls(productId, variation.getProductVariationId());
+        return variation.getSecondaryImageKeys().stream()
+                .map(s3Service::getObjectUrl)
+                .toList();
+    }
+
+    /**
+     * Thumbnails are only known for variations whose secondary image keys are stored.
+     */
+    List<String> getSecondaryImageThumbnailUrls(ProductVariation variation) {
+        if (!variation.isSecondaryImagesIndexed())
+            return null;
+        return variation.getSecondaryImageKeys().stream()
+                .map(key -> getDerivedImageUrl(variation, key, ImageDerivative.THUMBNAIL))
+                .toList();
+    }
+
+    /**
+     * URL of a derivative of one of the variation's images, or of the original while the derivative does not exist.
+     */
+    String getDerivedImageUrl(ProductVariation variation, String imageKey, ImageDerivative derivative) {
+        if (imageKey == null || imageKey.isEmpty())
+            return null;
+        if (!variation.getDerivedImageKeys().contains(imageKey))
+            return s3Service.getObjectUrl(imageKey);
+        return s3Service.getDerivedImageUrl(imageKey, derivative);
+    }
+
     String getPrimaryImageUrl(String primaryImageName) {
         log.debug("Fetching primary image URL for image: {}", primaryImageName);
-        if (primaryImageName != null && !primaryImageName.isEmpty()) {
-            try {
-                return s3Service.getObjectUrl(primaryImageName);
-            } catch (IOException e) {
-                log.error("Error getting primary image URL: {}", e.getMessage());
-            }
-        }
+        if (primaryImageName != null && !primaryImageName.isEmpty())
+            return s3Service.getObjectUrl(primaryImageName);
         return null;
     }
 
@@ -218,18 +296,7 @@ public class ProductService {
             }
         }
 
-        Map<String, Set<String>> existingMetadata = new HashMap<>();
-        Category current = category;
-
-        while (current != null) {
-            List<CategoryMetadataFieldValues> metadataValues = categoryMetadataFieldValuesRepository.findByCategory(current);
-            for (CategoryMetadataFieldValues value : metadataValues) {
-                String fieldName = value.getCategoryMetadataField().getName();
-                Set<String> allowedValues = Arrays.stream(value.getValues().split(",")).map(String::trim).collect(Collectors.toSet());
-                existingMetadata.put(fieldName, allowedValues);
-            }
-            current = current.getParentCategory();
-        }
+        Map<String, Set<String>> existingMetadata = categoryMetadataResolver.resolve(category.getCategoryId()).getAllowedValues();
 
         for (Map.Entry<String, Object> entry : metadata.entrySet()) {
             String fieldName = entry.getKey();
@@ -260,12 +327,8 @@ public class ProductService {
     void updateProductNameIfValid(ProductUpdateDTO dto, Product product, String productId, Seller seller, Locale locale) {
         log.debug("Checking if product name needs update for product ID: {}", productId);
         if (dto.getName() != null && !dto.getName().isBlank() && !dto.getName().trim().replaceAll("\\s{2,}", " ").equals(product.getName())){
-            boolean isDuplicate = productRepository.findAll().stream()
-                    .filter(p -> !p.getId().equals(productId))
-                    .filter(p -> p.getSeller().equals(seller))
-                    .filter(p -> p.getCategory().equals(product.getCategory()))
-                    .filter(p -> p.getBrand().equals(product.getBrand()))
-                    .anyMatch(p -> p.getName().equals(dto.getName().trim().replaceAll("\\s{2,}", " ")));
+            String nameKey = Product.computeNameKey(product.getBrand(), dto.getName());
+            boolean isDuplicate = productRepository.existsBySellerAndCategoryAndNameKeyAndIdNot(seller, product.getCategory(), nameKey, productId);
 
             if (isDuplicate) {
                 log.warn("Duplicate product name found: {}", dto.getName().replaceAll("\\s{2,}", " "));
@@ -279,7 +342,8 @@ public class ProductService {
 
     void checkForDuplicateProduct(ProductDTO productDTO, Seller seller, Category category, Locale locale) {
         log.debug("Checking for duplicate product: {} by {}", productDTO.getName(), seller.getId());
-        boolean isDuplicate = productRepository.existsByNameAndBrandAndCategoryAndSeller(productDTO.getName().trim().replaceAll("\\s{2,}", " "), productDTO.getBrand().trim().replaceAll("\\s{2,}", " "), category, seller);
+        String nameKey = Product.computeNameKey(productDTO.getBrand(), productDTO.getName());
+        boolean isDuplicate = productRepository.existsBySellerAndCategoryAndNameKey(seller, category, nameKey);
         if (isDuplicate) {
             log.warn("Duplicate product found: {} - {}", productDTO.getName(), productDTO.getBrand());
             throw new DuplicateProductException(messageSource.getMessage("product.duplicate.name",
@@ -287,6 +351,20 @@ public class ProductService {
         }
     }
 
+    /**
+     * Flushes so a concurrent insert or rename that slipped past the existence check is reported as a duplicate
+     * by the unique name key instead of failing at commit.
+     */
+    void saveProduct(Product product, Locale locale) {
+        try {
+            productRepository.saveAndFlush(product);
+        } catch (DataIntegrityViolationException e) {
+            log.warn("Duplicate product rejected by unique name key: {} - {}", product.getName(), product.getBrand());
+            throw new DuplicateProductException(messageSource.getMessage("product.duplicate.name",
+                    new Object[]{product.getName(), product.getBrand()}, locale));
+        }
+    }
+
     Product buildProductFromDTO(ProductDTO productDTO, Seller seller, Category category) {
         log.debug("Building product entity from DTO for seller ID: {}", seller.getId());
         return Product.builder()
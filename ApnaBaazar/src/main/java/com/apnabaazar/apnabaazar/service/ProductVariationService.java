@@ -1,5 +1,6 @@
 package com.apnabaazar.apnabaazar.service;
 
+import com.apnabaazar.apnabaazar.enums.ImageDerivative;
 import com.apnabaazar.apnabaazar.exceptions.InvalidImageFormatException;
 import com.apnabaazar.apnabaazar.exceptions.InvalidSellerException;
 import com.apnabaazar.apnabaazar.exceptions.ProductVariationNotFoundException;
@@ -15,11 +16,17 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.context.MessageSource;
 import org.springframework.context.i18n.LocaleContextHolder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Locale;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 @Slf4j
 @RequiredArgsConstructor
@@ -28,6 +35,7 @@ public class ProductVariationService {
 
     private final ProductVariationRepository productVariationRepository;
     private final S3Service s3Service;
+    private final ImageDerivativeService imageDerivativeService;
     private final ProductService productService;
     private final MessageSource messageSource;
 
@@ -64,55 +72,128 @@ public class ProductVariationService {
     void updateImages(Product product, ProductVariation variation, MultipartFile primaryImage, List<MultipartFile> secondaryImages) {
         try {
             log.info("Updating images for product ID: {}, variation ID: {}", product.getId(), variation.getProductVariationId());
-            updatePrimaryImage(product, variation, primaryImage);
-            uploadSecondaryImages(product.getId(), variation.getProductVariationId(), secondaryImages);
+            uploadImages(product, variation, primaryImage, secondaryImages);
         } catch (IOException e) {
             log.error("Error updating images for variation ID {}: {}", variation.getProductVariationId(), e.getMessage(), e);
             throw new InvalidImageFormatException("Failed to update images: " + e.getMessage());
         }
     }
 
-    void updatePrimaryImage(Product product, ProductVariation variation, MultipartFile primaryImage) throws IOException {
-        if (primaryImage != null && !primaryImage.isEmpty()) {
-            log.debug("Updating primary image for variation ID: {}", variation.getProductVariationId());
+    /**
+     * Uploads the primary and secondary images concurrently, so the call takes about as long as the slowest upload.
+     * If any upload fails, the ones that succeeded are deleted again and the variation is left unchanged.
+     */
+    void uploadImages(Product product, ProductVariation variation, MultipartFile primaryImage, List<MultipartFile> secondaryImages) throws IOException {
+        String variationId = variation.getProductVariationId();
+        CompletableFuture<String> primaryUpload = null;
+        List<CompletableFuture<String>> secondaryUploads = new ArrayList<>();
+        List<CompletableFuture<String>> uploads = new ArrayList<>();
 
-            if (variation.getPrimaryImageName() != null) {
-                log.debug("Deleting old primary image: {}", variation.getPrimaryImageName());
-                s3Service.deleteObject(variation.getPrimaryImageName());
+        try {
+            if (primaryImage != null && !primaryImage.isEmpty()) {
+                log.debug("Uploading primary image for variation ID: {}", variationId);
+                primaryUpload = s3Service.uploadProductVariationImageAsync(product.getId(), variationId, primaryImage, true);
+                uploads.add(primaryUpload);
+            }
+            if (secondaryImages != null) {
+                for (MultipartFile image : secondaryImages) {
+                    if (image != null && !image.isEmpty()) {
+                        log.debug("Uploading secondary image for variation ID: {}", variationId);
+                        CompletableFuture<String> upload = s3Service.uploadProductVariationImageAsync(product.getId(), variationId, image, false);
+                        secondaryUploads.add(upload);
+                        uploads.add(upload);
+                    }
+                }
             }
+            CompletableFuture.allOf(uploads.toArray(CompletableFuture[]::new)).join();
+        } catch (IOException | RuntimeException e) {
+            deleteUploadedImages(uploads);
+            Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+            if (cause instanceof IOException ioException)
+                throw ioException;
+            if (cause instanceof InvalidImageFormatException invalidImage)
+                throw invalidImage;
+            throw new IOException("Failed to upload images: " + cause.getMessage(), cause);
+        }
 
-            String imageKey = s3Service.uploadProductVariationImage(product.getId(), variation.getProductVariationId(), primaryImage, true);
+        if (primaryUpload != null) {
+            String imageKey = primaryUpload.join();
+            String previousKey = variation.getPrimaryImageName();
+            if (previousKey != null && !previousKey.isEmpty()) {
+                variation.getDerivedImageKeys().remove(previousKey);
+                deleteReplacedImage(previousKey);
+            }
             log.debug("Uploaded new primary image: {}", imageKey);
             variation.setPrimaryImageName(imageKey);
         }
+        secondaryUploads.forEach(upload -> variation.getSecondaryImageKeys().add(upload.join()));
+        imageDerivativeService.generateDerivativesAfterCommit(variationId, uploads.stream().map(CompletableFuture::join).toList());
     }
 
-    void uploadSecondaryImages(String productId, String variationId, List<MultipartFile> secondaryImages) throws IOException {
-        if (secondaryImages == null || secondaryImages.isEmpty()) {
-            log.debug("No secondary images provided for variation ID: {}", variationId);
-            return;
+    /**
+     * Deletes a replaced primary image once the new key is committed, so a rolled back update still points at an
+     * existing object.
+     */
+    private void deleteReplacedImage(String key) {
+        Runnable delete = () -> {
+            log.debug("Deleting old primary image: {}", key);
+            try {
+                s3Service.deleteObject(key);
+                imageDerivativeService.deleteDerivatives(key);
+            } catch (RuntimeException e) {
+                log.warn("Failed to delete replaced image {}: {}", key, e.getMessage());
+            }
+        };
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    delete.run();
+                }
+            });
+        } else {
+            delete.run();
         }
+    }
 
-        for (MultipartFile image : secondaryImages) {
-            if (image != null && !image.isEmpty()) {
-                log.debug("Uploading secondary image for variation ID: {}", variationId);
-                s3Service.uploadProductVariationImage(productId, variationId, image, false);
+    private void deleteUploadedImages(List<CompletableFuture<String>> uploads) {
+        for (CompletableFuture<String> upload : uploads) {
+            String key;
+            try {
+                // Wait for in-flight uploads so nothing lands after the cleanup
+                key = upload.join();
+            } catch (CompletionException | CancellationException e) {
+                continue;
+            }
+            try {
+                s3Service.deleteObject(key);
+            } catch (RuntimeException e) {
+                log.warn("Failed to delete image {} after a failed upload: {}", key, e.getMessage());
             }
         }
     }
 
+    /**
+     * Stores the secondary image keys of a variation created before keys were persisted, taken from one S3 listing.
+     */
+    public void indexSecondaryImages(ProductVariation variation) {
+        List<String> keys = s3Service.listSecondaryImageKeys(variation.getProduct().getId(), variation.getProductVariationId());
+        variation.setSecondaryImageKeys(new ArrayList<>(keys));
+        variation.setSecondaryImagesIndexed(true);
+        productVariationRepository.save(variation);
+    }
+
     ProductVariationResponseDTO mapToProductVariationResponseDTO(ProductVariation variation, String productId) {
         log.debug("Mapping variation ID: {} to response DTO", variation.getProductVariationId());
         String imageUrl;
-        try {
-            imageUrl = s3Service.getObjectUrl(
-                    "products/" + productId + "/variations/" + variation.getProductVariationId() +
-                            s3Service.getExtension(variation.getPrimaryImageName())
-            );
-            log.debug("Fetched primary image URL: {}", imageUrl);
-        } catch (IOException e) {
+        String thumbnailUrl = productService.getDerivedImageUrl(variation, variation.getPrimaryImageName(), ImageDerivative.THUMBNAIL);
+        String mediumUrl = productService.getDerivedImageUrl(variation, variation.getPrimaryImageName(), ImageDerivative.MEDIUM);
+        if (variation.getPrimaryImageName() != null && !variation.getPrimaryImageName().isEmpty()) {
+            imageUrl = s3Service.getObjectUrl(variation.getPrimaryImageName());
+            log.debug("Resolved primary image URL: {}", imageUrl);
+        } else {
             imageUrl = "https://your-cdn.com/default-image.jpg";
-            log.warn("Failed to get image URL for variation ID: {}, using fallback", variation.getProductVariationId(), e);
+            log.warn("No primary image for variation ID: {}, using fallback", variation.getProductVariationId());
         }
 
         return ProductVariationResponseDTO.builder()
@@ -121,6 +202,8 @@ public class ProductVariationService {
                 .quantity(variation.getQuantityAvailable())
                 .price(variation.getPrice())
                 .primaryImageUrl(imageUrl)
+                .primaryImageThumbnailUrl(thumbnailUrl)
+                .primaryImageMediumUrl(mediumUrl)
                 .build();
     }
 
@@ -0,0 +1,49 @@
+package com.apnabaazar.apnabaazar.service;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Metadata a category inherits, resolved once along its ancestor chain. Holds only ids and strings, so it can
+ * be cached across requests.
+ */
+@Getter
+public class ResolvedCategoryMetadata {
+
+    @Getter
+    @AllArgsConstructor
+    public static class Entry {
+        private final String categoryId;
+        private final String fieldId;
+        private final String fieldName;
+        private final String values;
+        private final Set<String> allowedValues;
+    }
+
+    // The category's own entries first, then each ancestor's up to the root
+    private final List<Entry> entries;
+
+    // For product validation, where an ancestor's assignment overrides the category's
+    private final Map<String, Set<String>> allowedValues;
+
+    // For customer filters, where the category's own assignment wins
+    private final Map<String, String> filters;
+
+    ResolvedCategoryMetadata(List<Entry> entries) {
+        this.entries = List.copyOf(entries);
+        Map<String, Set<String>> allowed = new HashMap<>();
+        Map<String, String> filterValues = new LinkedHashMap<>();
+        for (Entry entry : entries) {
+            allowed.put(entry.getFieldName(), entry.getAllowedValues());
+            filterValues.putIfAbsent(entry.getFieldName(), entry.getValues());
+        }
+        this.allowedValues = Map.copyOf(allowed);
+        this.filters = Map.copyOf(filterValues);
+    }
+}
@@ -1,22 +1,40 @@
 package com.apnabaazar.apnabaazar.service;
 
+import com.apnabaazar.apnabaazar.enums.ImageDerivative;
 import com.apnabaazar.apnabaazar.exceptions.InvalidImageFormatException;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.core.async.AsyncRequestBody;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
 import software.amazon.awssdk.services.s3.S3Client;
-import software.amazon.awssdk.services.s3.model.GetObjectRequest;
 import software.amazon.awssdk.services.s3.model.ListObjectsV2Request;
 import software.amazon.awssdk.services.s3.model.ListObjectsV2Response;
+import software.amazon.awssdk.services.s3.model.NoSuchKeyException;
 import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+import software.amazon.awssdk.services.s3.model.PutObjectResponse;
+import software.amazon.awssdk.services.s3.model.S3Exception;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
 
 @Slf4j
 @Service
@@ -24,6 +42,7 @@ import java.util.Set;
 public class S3Service {
 
     private final S3Client s3Client;
+    private final S3AsyncClient s3AsyncClient;
 
     @Value("${aws.s3.bucket}")
     private String bucket;
@@ -31,77 +50,112 @@ public class S3Service {
     @Value("${aws.region.static}")
     private String region;
 
+    @Value("${aws.s3.endpoint:}")
+    private String endpoint;
+
     private static final String BASE_PATH = "users/";
 
     private static final Set<String> ALLOWED_EXTENSIONS = Set.of(".png", ".jpg", ".jpeg", ".bmp");
 
-    public String uploadProfileImage(String username, MultipartFile file) throws IOException {
-        String extension = getExtension(file.getOriginalFilename());
-        String key = BASE_PATH + username + extension;
+    @Value("${aws.s3.existence-cache.size:10000}")
+    private long existenceCacheSize;
 
-        log.info("Uploading new profile image for user: {} with key: {}", username, key);
+    @Value("${aws.s3.existence-cache.ttl:600000}")
+    private long existenceCacheTtlMillis;
 
-        // Delete any existing profile image
-        boolean deleted = deleteProfileImage(username);
-        if (deleted) {
-            log.info("Previous profile image deleted for user: {}", username);
-        } else {
-            log.info("No existing profile image found for user: {}", username);
-        }
+    @Value("${aws.s3.upload.max-concurrent:8}")
+    private int maxConcurrentUploads;
 
-        PutObjectRequest request = PutObjectRequest.builder()
-                .bucket(bucket)
-                .key(key)
-                .acl("public-read")
-                .contentType(file.getContentType())
+    @Value("${aws.s3.upload.acquire-timeout:10000}")
+    private long uploadAcquireTimeoutMillis;
+
+    private String urlPrefix;
+
+    private Semaphore uploadPermits;
+
+    // reads multipart streams into the async client; one thread per upload slot
+    private ExecutorService uploadStreamExecutor;
+
+    // key -> whether the object exists, as last seen by HEAD or by our own upload/delete
+    private Cache<String, Boolean> existenceCache;
+
+    @PostConstruct
+    void init() {
+        uploadPermits = new Semaphore(maxConcurrentUploads, true);
+        uploadStreamExecutor = Executors.newFixedThreadPool(maxConcurrentUploads);
+        urlPrefix = endpoint.isBlank()
+                ? String.format("https://%s.s3.%s.amazonaws.com/", bucket, region)
+                : String.format("%s/%s/", endpoint.replaceAll("/+$", ""), bucket);
+        existenceCache = Caffeine.newBuilder()
+                .maximumSize(existenceCacheSize)
+                .expireAfterWrite(Duration.ofMillis(existenceCacheTtlMillis))
                 .build();
+    }
+
+    @PreDestroy
+    void shutdown() {
+        uploadStreamExecutor.shutdown();
+    }
 
-        s3Client.putObject(request, RequestBody.fromBytes(file.getBytes()));
+    /**
+     * Uploads a profile image and returns its key. The caller owns the key and removes any previous image,
+     * so no probing of other extensions is needed here.
+     */
+    public String uploadProfileImage(String username, MultipartFile file) throws IOException {
+        String extension = getExtension(file.getOriginalFilename());
+        String key = BASE_PATH + username + extension;
+
+        log.info("Uploading new profile image for user: {} with key: {}", username, key);
+        putObject(key, file);
         log.info("Successfully uploaded image to S3 with key: {}", key);
 
         return key;
     }
 
+    /**
+     * HEAD-based existence check, cached briefly so repeated lookups of the same key don't each hit S3.
+     */
     public boolean doesObjectExist(String key) {
+        Boolean cached = existenceCache.getIfPresent(key);
+        if (cached != null)
+            return cached;
         try {
-            GetObjectRequest request = GetObjectRequest.builder()
-                    .bucket(bucket)
-                    .key(key)
-                    .build();
-            s3Client.getObject(request);
+            s3Client.headObject(builder -> builder.bucket(bucket).key(key));
             log.debug("Object exists: {}", key);
+            existenceCache.put(key, true);
             return true;
-        } catch (Exception e) {
+        } catch (NoSuchKeyException e) {
             log.debug("Object not found: {}", key);
+            existenceCache.put(key, false);
+            return false;
+        } catch (S3Exception e) {
+            if (e.statusCode() == 404) {
+                log.debug("Object not found: {}", key);
+                existenceCache.put(key, false);
+                return false;
+            }
+            log.error("Error checking object {}: {}", key, e.getMessage());
             return false;
         }
     }
 
-    public String getProfileImageUrl(String username, String defaultImageUrl) {
-        for (String ext : ALLOWED_EXTENSIONS) {
-            String key = BASE_PATH + username + ext;
-            if (doesObjectExist(key)) {
-                String imageUrl = String.format("https://%s.s3.%s.amazonaws.com/%s", bucket, region, key);
-                log.info("Found profile image for {}: {}", username, imageUrl);
-                return imageUrl;
-            }
-        }
-        log.warn("No profile image found for {}, using default image", username);
-        return defaultImageUrl;
+    public String getProfileImageUrl(String key, long version, String defaultImageUrl) {
+        if (key == null || key.isEmpty())
+            return defaultImageUrl;
+        return getObjectUrl(key) + "?v=" + version;
     }
 
-    public boolean deleteProfileImage(String username) {
-        log.info("Attempting to delete profile image for user: {}", username);
+    /**
+     * Finds a profile image stored before its key was recorded on the user, by probing each allowed extension.
+     * Called at most once per user, see UserService.resolveLegacyProfileImage.
+     */
+    public String findLegacyProfileImageKey(String username) {
         for (String ext : ALLOWED_EXTENSIONS) {
             String key = BASE_PATH + username + ext;
-            if (doesObjectExist(key)) {
-                s3Client.deleteObject(builder -> builder.bucket(bucket).key(key));
-                log.info("Deleted image with key: {}", key);
-                return true;
-            }
+            if (doesObjectExist(key))
+                return key;
         }
-        log.warn("No image found for user: {}", username);
-        return false;
+        return null;
     }
 
     public String getExtension(String filename) {
@@ -115,27 +169,98 @@ public class S3Service {
         return extension;
     }
 
-    public String uploadProductVariationImage(String productId, String variationId, MultipartFile image, boolean isPrimary) throws IOException {
+    /**
+     * Starts a non-blocking upload of a variation image and completes with its key. The request thread only waits
+     * for an upload slot; the body is streamed from the multipart part on the upload executor.
+     * Every upload gets a fresh key, so a failed upload never overwrites the image the variation currently points to.
+     */
+    public CompletableFuture<String> uploadProductVariationImageAsync(String productId, String variationId, MultipartFile image, boolean isPrimary) throws IOException {
         String extension = getExtension(image.getOriginalFilename());
         String key = "products/" + productId + "/variations/";
 
         if (isPrimary) {
-            key += variationId + extension;
+            // '-' rather than '_' keeps primary images out of the secondary image prefix
+            key += variationId + "-" + UUID.randomUUID().toString().substring(0, 8) + extension;
         } else {
-            // Add timestamp for unique secondary image names
-            key += variationId + "_" + System.currentTimeMillis() + extension;
+            // Timestamp keeps listings in upload order; the random suffix keeps concurrent uploads apart
+            key += variationId + "_" + System.currentTimeMillis() + "-" + UUID.randomUUID().toString().substring(0, 8) + extension;
         }
+        String objectKey = key;
 
         PutObjectRequest request = PutObjectRequest.builder()
                 .bucket(bucket)
-                .key(key)
+                .key(objectKey)
                 .acl("public-read")
                 .contentType(image.getContentType())
+                .contentLength(image.getSize())
                 .build();
 
-        s3Client.putObject(request, RequestBody.fromBytes(image.getBytes()));
+        acquireUploadPermit();
+        InputStream inputStream;
+        try {
+            inputStream = image.getInputStream();
+        } catch (IOException e) {
+            uploadPermits.release();
+            throw e;
+        }
+        CompletableFuture<PutObjectResponse> upload;
+        try {
+            upload = s3AsyncClient.putObject(request, AsyncRequestBody.fromInputStream(inputStream, image.getSize(), uploadStreamExecutor));
+        } catch (RuntimeException e) {
+            // Thrown before the request started, so the completion handler below never runs
+            uploadPermits.release();
+            closeQuietly(inputStream);
+            throw e;
+        }
+        return upload
+                .whenComplete((response, error) -> {
+                    uploadPermits.release();
+                    closeQuietly(inputStream);
+                    if (error == null)
+                        existenceCache.put(objectKey, true);
+                })
+                .thenApply(response -> objectKey);
+    }
 
-        return key;
+    private void closeQuietly(InputStream inputStream) {
+        try {
+            inputStream.close();
+        } catch (IOException e) {
+            log.debug("Error closing upload stream", e);
+        }
+    }
+
+    /**
+     * Streams the upload to S3 from the multipart part (spooled to disk by the servlet container) with a known
+     * content length, so heap use per upload stays at the SDK's buffer size rather than the file size.
+     * Concurrent uploads are capped; a request that can't get a slot in time fails instead of piling up.
+     */
+    private void putObject(String key, MultipartFile file) throws IOException {
+        PutObjectRequest request = PutObjectRequest.builder()
+                .bucket(bucket)
+                .key(key)
+                .acl("public-read")
+                .contentType(file.getContentType())
+                .contentLength(file.getSize())
+                .build();
+
+        acquireUploadPermit();
+        try (InputStream inputStream = file.getInputStream()) {
+            s3Client.putObject(request, RequestBody.fromInputStream(inputStream, file.getSize()));
+        } finally {
+            uploadPermits.release();
+        }
+        existenceCache.put(key, true);
+    }
+
+    private void acquireUploadPermit() throws IOException {
+        try {
+            if (!uploadPermits.tryAcquire(uploadAcquireTimeoutMillis, TimeUnit.MILLISECONDS))
+                throw new IOException("Too many concurrent image uploads, try again later");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting to upload image");
+        }
     }
 
     public void deleteObject(String key) {
@@ -147,6 +272,7 @@ public class S3Service {
         log.info("Deleting object with key: {}", key);
         try {
             s3Client.deleteObject(builder -> builder.bucket(bucket).key(key));
+            existenceCache.put(key, false);
             log.info("Successfully deleted object: {}", key);
         } catch (Exception e) {
             log.error("Error deleting object {}: {}", key, e.getMessage());
@@ -155,33 +281,66 @@ public class S3Service {
     }
 
 
-    public String getObjectUrl(String key) throws IOException {
-        if (!doesObjectExist(key)) {
-            throw new IOException("Object not found: " + key);
-        }
-        return String.format("https://%s.s3.%s.amazonaws.com/%s", bucket, region, key);
+    /**
+     * Key of a generated derivative; derivatives live under their own prefix so they never show up in
+     * listings of the original images.
+     */
+    public String getDerivedImageKey(String key, ImageDerivative derivative) {
+        int extensionStart = key.lastIndexOf('.');
+        String baseKey = extensionStart > key.lastIndexOf('/') ? key.substring(0, extensionStart) : key;
+        return "derived/" + derivative.getPath() + "/" + baseKey + ".jpg";
     }
 
-    public List<String> getSecondaryImageUrls(String productId, String variationId) {
-        List<String> urls = new ArrayList<>();
-        String prefix = "products/" + productId + "/variations/" + variationId + "_";
+    public String getDerivedImageUrl(String key, ImageDerivative derivative) {
+        return getObjectUrl(getDerivedImageKey(key, derivative));
+    }
 
-        try {
-            ListObjectsV2Request listRequest = ListObjectsV2Request.builder()
-                    .bucket(bucket)
-                    .prefix(prefix)
-                    .build();
+    /**
+     * Opens an object for reading; the caller must close the stream to return the connection to the pool.
+     */
+    public InputStream openObject(String key) {
+        return s3Client.getObject(builder -> builder.bucket(bucket).key(key));
+    }
+
+    public void putObject(String key, byte[] content, String contentType) {
+        PutObjectRequest request = PutObjectRequest.builder()
+                .bucket(bucket)
+                .key(key)
+                .acl("public-read")
+                .contentType(contentType)
+                .build();
+        s3Client.putObject(request, RequestBody.fromBytes(content));
+        existenceCache.put(key, true);
+    }
 
-            ListObjectsV2Response response = s3Client.listObjectsV2(listRequest);
+    /**
+     * Public URL of an object. Keys are stored on the entities that own them, so this is pure string building.
+     */
+    public String getObjectUrl(String key) {
+        return urlPrefix + key;
+    }
 
-            response.contents().forEach(object -> {
-                String url = String.format("https://%s.s3.%s.amazonaws.com/%s", bucket, region, object.key());
-                urls.add(url);
-            });
+    public List<String> getSecondaryImageUrls(String productId, String variationId) {
+        List<String> urls = new ArrayList<>();
+        try {
+            listSecondaryImageKeys(productId, variationId).forEach(key -> urls.add(getObjectUrl(key)));
         } catch (Exception e) {
             log.error("Error listing secondary images for product variation {}: {}", variationId, e.getMessage());
         }
         return urls;
     }
 
+    public List<String> listSecondaryImageKeys(String productId, String variationId) {
+        String prefix = "products/" + productId + "/variations/" + variationId + "_";
+        ListObjectsV2Request listRequest = ListObjectsV2Request.builder()
+                .bucket(bucket)
+                .prefix(prefix)
+                .build();
+
+        List<String> keys = new ArrayList<>();
+        for (ListObjectsV2Response page : s3Client.listObjectsV2Paginator(listRequest))
+            page.contents().forEach(object -> keys.add(object.key()));
+        return keys;
+    }
+
 }
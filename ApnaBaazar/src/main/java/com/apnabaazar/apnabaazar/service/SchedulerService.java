@@ -21,6 +21,7 @@ public class SchedulerService {
     private final AuthTokenRepository authTokenRepository;
     private final UserRepository userRepository;
     private final EmailService emailService;
+    private final UserDetailsServiceImpl userDetailsService;
 
     @Scheduled(fixedRate = 60*60000)
     public void deleteExpiredTokens() {
@@ -52,6 +53,7 @@ public class SchedulerService {
                 user.setLocked(false);
                 user.setInvalidAttemptCount(0);
                 userRepository.save(user);
+                userDetailsService.evictUser(user.getEmail());
                 unlockCount++;
 
                 log.info("Automatically unlocked account for user: {}", user.getEmail());
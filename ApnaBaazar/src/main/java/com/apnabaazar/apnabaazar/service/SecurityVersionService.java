@@ -0,0 +1,31 @@
+package com.apnabaazar.apnabaazar.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.stereotype.Service;
+
+/**
+ * Per-user security version kept in Redis. Stateless access tokens carry the version they were issued under,
+ * and bumping it on lock, deactivation or password change makes every outstanding token fall back to the
+ * database-backed check.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class SecurityVersionService {
+
+    private static final String SECURITY_VERSION_PREFIX = "user_security_version:";
+
+    private final RedisTemplate<String, String> redisTemplate;
+
+    public long currentVersion(String email) {
+        String version = redisTemplate.opsForValue().get(SECURITY_VERSION_PREFIX + email);
+        return version == null ? 0L : Long.parseLong(version);
+    }
+
+    public void bumpVersion(String email) {
+        Long version = redisTemplate.opsForValue().increment(SECURITY_VERSION_PREFIX + email);
+        log.debug("Security version for user {} bumped to {}", email, version);
+    }
+}
@@ -51,11 +51,12 @@ public class SellerService {
     private final ProductRepository productRepository;
     private final ProductVariationRepository productVariationRepository;
     private final CategoryMetadataFieldValuesRepository categoryMetadataFieldValuesRepository;
-    private final S3Service s3Service;
     private final CategoryService categoryService;
+    private final CategoryTreeService categoryTreeService;
     private final ProductVariationService productVariationService;
     private final UserService userService;
     private final ProductService productService;
+    private final CategoryFacetService categoryFacetService;
     private final BCryptPasswordEncoder passwordEncoder;
     private final MessageSource messageSource;
     private final EmailService emailService;
@@ -79,7 +80,7 @@ public class SellerService {
         log.info("Fetching profile for seller: {}", email);
         Seller seller = getSellerByEmail(email);
         try {
-            String imageUrl = s3Service.getProfileImageUrl(email, defaultSellerImage);
+            String imageUrl = userService.getProfileImageUrl(seller, defaultSellerImage);
             log.info("Seller profile image URL resolved: {}", imageUrl);
             return ResponseEntity.ok(SellerMapper.toSellerProfileDTO(seller, imageUrl));
         } catch (Exception e) {
@@ -126,10 +127,11 @@ public class SellerService {
     }
 
     public List<CategoryResponseDTO> getAllCategories() {
-        List<Category> allCategories = categoryRepository.findAll();
-        List<Category> leafCategories = allCategories.stream()
-                .filter(category -> category.getSubCategories() == null || category.getSubCategories().isEmpty())
+        List<String> leafIds = categoryTreeService.getSnapshot().getNodes().stream()
+                .filter(CategoryTreeSnapshot.CategoryNode::isLeaf)
+                .map(CategoryTreeSnapshot.CategoryNode::getCategoryId)
                 .toList();
+        List<Category> leafCategories = categoryRepository.findAllById(leafIds);
 
         // Map leaf categories to response DTOs with full metadata and hierarchy
         return leafCategories.stream()
@@ -157,7 +159,8 @@ public class SellerService {
         categoryService.validateLeafCategory(category);
         productService. checkForDuplicateProduct(productDTO, seller, category, locale);
         Product product = productService.buildProductFromDTO(productDTO, seller, category);
-        productRepository.save(product);
+        productService.saveProduct(product, locale);
+        categoryFacetService.markChanged(category.getCategoryId());
 
         Optional<Role> role = roleRepository.findByAuthority("ROLE_ADMIN");
         Set<Role> roles = new HashSet<>();
@@ -197,9 +200,9 @@ public class SellerService {
         // Save first to get an ID
         ProductVariation savedVariation = productVariationRepository.save(variation);
         try {
-            productVariationService.updatePrimaryImage(product, savedVariation, primaryImage);
-            productVariationService.uploadSecondaryImages(product.getId(), savedVariation.getProductVariationId(), secondaryImages);
+            productVariationService.uploadImages(product, savedVariation, primaryImage, secondaryImages);
             productVariationRepository.save(savedVariation);
+            categoryFacetService.markChanged(category.getCategoryId());
         } catch (IOException e) {
             log.error("Error uploading images: {}", e.getMessage());
             productVariationRepository.delete(savedVariation);
@@ -227,6 +230,7 @@ public class SellerService {
         productService.validateSellerOwnership(product, seller);
         product.setDeleted(true);
         productRepository.save(product);
+        categoryFacetService.markChanged(product.getCategory().getCategoryId());
 
     }
 
@@ -240,6 +244,7 @@ public class SellerService {
         productVariationService.updateVariationDetails(dto, variation, product, locale);
         productVariationService.updateImages(product, variation, primaryImage, secondaryImages);
         productVariationRepository.save(variation);
+        categoryFacetService.markChanged(product.getCategory().getCategoryId());
     }
 
 
@@ -258,7 +263,7 @@ public class SellerService {
         if (Boolean.TRUE.equals(dto.getReturnable()) != product.isReturnable())
             product.setReturnable(dto.getReturnable());
 
-        productRepository.save(product);
+        productService.saveProduct(product, locale);
     }
 
     public List<ProductDTO> searchProducts(Map<String, String> filters, int page, int size, String sort, String direction, UserPrincipal userPrincipal) {
@@ -0,0 +1,95 @@
+package com.apnabaazar.apnabaazar.service;
+
+import jakarta.annotation.PreDestroy;
+import jakarta.mail.MessagingException;
+import jakarta.mail.Session;
+import jakarta.mail.Transport;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Iterator;
+import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.LinkedBlockingDeque;
+
+/**
+ * Keeps authenticated SMTP connections open between outbox batches so each batch does not pay for a new
+ * TCP, STARTTLS and AUTH handshake. Connections idle longer than the configured timeout are closed.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class SmtpConnectionPool {
+
+    private final JavaMailSenderImpl mailSender;
+
+    @Value("${email.smtp.idle-timeout:60000}")
+    private long idleTimeoutMillis;
+
+    // most recently returned first, so the warmest connection is reused and the rest can age out
+    private final BlockingDeque<PooledTransport> idle = new LinkedBlockingDeque<>();
+
+    public Transport borrow() throws MessagingException {
+        PooledTransport pooled;
+        while ((pooled = idle.pollFirst()) != null) {
+            if (pooled.transport.isConnected())
+                return pooled.transport;
+            discard(pooled.transport);
+        }
+        Session session = mailSender.getSession();
+        // Same resolution as JavaMailSenderImpl: EmailConfig sets the protocol as a session property, not on the sender
+        String protocol = mailSender.getProtocol();
+        if (protocol == null || protocol.isEmpty())
+            protocol = session.getProperty("mail.transport.protocol");
+        Transport transport = session.getTransport(protocol == null ? JavaMailSenderImpl.DEFAULT_PROTOCOL : protocol);
+        transport.connect(mailSender.getHost(), mailSender.getPort(), mailSender.getUsername(), mailSender.getPassword());
+        log.debug("Opened SMTP connection to {}:{}", mailSender.getHost(), mailSender.getPort());
+        return transport;
+    }
+
+    public void release(Transport transport) {
+        if (transport.isConnected())
+            idle.offerFirst(new PooledTransport(transport, System.currentTimeMillis()));
+        else
+            discard(transport);
+    }
+
+    public void discard(Transport transport) {
+        try {
+            transport.close();
+        } catch (MessagingException e) {
+            log.debug("Error closing SMTP connection", e);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${email.smtp.idle-timeout:60000}")
+    public void closeIdleConnections() {
+        long cutoff = System.currentTimeMillis() - idleTimeoutMillis;
+        Iterator<PooledTransport> iterator = idle.iterator();
+        while (iterator.hasNext()) {
+            PooledTransport pooled = iterator.next();
+            if (pooled.releasedAt < cutoff && idle.removeFirstOccurrence(pooled))
+                discard(pooled.transport);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        PooledTransport pooled;
+        while ((pooled = idle.pollFirst()) != null)
+            discard(pooled.transport);
+    }
+
+    private static final class PooledTransport {
+        private final Transport transport;
+        private final long releasedAt;
+
+        private PooledTransport(Transport transport, long releasedAt) {
+            this.transport = transport;
+            this.releasedAt = releasedAt;
+        }
+    }
+}
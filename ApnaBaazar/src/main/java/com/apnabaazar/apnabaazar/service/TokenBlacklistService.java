@@ -1,35 +1,322 @@
 package com.apnabaazar.apnabaazar.service;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.Cursor;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
 
+/**
+ * Access-token blacklist backed by Redis, keyed by the SHA-256 digest of the token rather than the token itself,
+ * with two local tiers in front of it:
+ * a bounded cache of tokens known to be blacklisted (expiring with the token) and a Bloom filter
+ * of every blacklisted token, so the common "not blacklisted" answer needs no Redis round-trip.
+ * Nodes stay coherent through a Redis pub/sub channel; the Bloom filter is rebuilt from Redis
+ * periodically to pick up anything a node missed while it was not subscribed.
+ */
+@Slf4j
 @Service
-public class TokenBlacklistService {
+public class TokenBlacklistService implements MessageListener {
     @Autowired
     private RedisTemplate<String, String> redisTemplate;
 
+    @Autowired
+    private RedisMessageListenerContainer redisMessageListenerContainer;
+
     private static final String BLACKLIST_ACCESS_PREFIX = "bl_access_token:";
     private static final String BLACKLIST_RESET_PREFIX = "bl_reset_token:";
+    private static final String BLACKLIST_CHANNEL = "bl_access_token_events";
+    private static final String USER_RESET_TOKEN_PREFIX = "user_reset_token:";
+    private static final String MARKER_VALUE = "1";
+    private static final double BLOOM_FALSE_POSITIVE_RATE = 0.01;
+
+    @Value("${jwt.blacklist.local-cache-size:100000}")
+    private long localCacheSize;
+
+    @Value("${jwt.blacklist.bloom-filter.enabled:true}")
+    private boolean bloomFilterEnabled;
+
+    @Value("${jwt.blacklist.bloom-filter.expected-entries:1000000}")
+    private int bloomExpectedEntries;
+
+    // token digest -> epoch millis at which the token expires anyway
+    private Cache<String, Long> localBlacklist;
 
+    // null until the first rebuild from Redis completes; until then every miss goes to Redis
+    private volatile BloomFilter bloomFilter;
+    private volatile BloomFilter pendingBloomFilter;
+
+    @PostConstruct
+    void init() {
+        localBlacklist = Caffeine.newBuilder()
+                .maximumSize(localCacheSize)
+                .expireAfter(new Expiry<String, Long>() {
+                    @Override
+                    public long expireAfterCreate(String digest, Long expiresAt, long currentTime) {
+                        return remainingNanos(expiresAt);
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String digest, Long expiresAt, long currentTime, long currentDuration) {
+                        return remainingNanos(expiresAt);
+                    }
+
+                    @Override
+                    public long expireAfterRead(String digest, Long expiresAt, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .build();
+        redisMessageListenerContainer.addMessageListener(this, new ChannelTopic(BLACKLIST_CHANNEL));
+    }
 
     public void blacklistAccessToken(String token, long timeToExpire) {
-        String key = BLACKLIST_ACCESS_PREFIX + token;
-        redisTemplate.opsForValue().set(key,"blacklisted",timeToExpire, TimeUnit.MILLISECONDS);
+        byte[] digest = digest(token);
+        String key = BLACKLIST_ACCESS_PREFIX + encode(digest);
+        redisTemplate.opsForValue().set(key, MARKER_VALUE, timeToExpire, TimeUnit.MILLISECONDS);
+
+        long expiresAt = System.currentTimeMillis() + timeToExpire;
+        rememberBlacklisted(digest, expiresAt);
+        redisTemplate.convertAndSend(BLACKLIST_CHANNEL, encode(digest) + ":" + expiresAt);
     }
 
     public void blacklistResetToken(String token, long timeToExpire) {
-        String key = BLACKLIST_RESET_PREFIX + token;
-        redisTemplate.opsForValue().set(key, "blacklisted", timeToExpire, TimeUnit.MILLISECONDS);
+        String key = BLACKLIST_RESET_PREFIX + tokenDigest(token);
+        redisTemplate.opsForValue().set(key, MARKER_VALUE, timeToExpire, TimeUnit.MILLISECONDS);
+    }
+
+    public boolean isResetTokenStored(String token) {
+        return Boolean.TRUE.equals(redisTemplate.hasKey(BLACKLIST_RESET_PREFIX + tokenDigest(token)));
+    }
+
+    public void removeResetToken(String token) {
+        removeResetTokenDigest(tokenDigest(token));
+    }
+
+    public void removeResetTokenDigest(String digest) {
+        redisTemplate.delete(BLACKLIST_RESET_PREFIX + digest);
+    }
+
+    /**
+     * Fixed-size (43 character) Redis-safe digest of a token, used in place of the full JWT in keys.
+     */
+    public String tokenDigest(String token) {
+        return encode(digest(token));
     }
 
     public boolean isAccessTokenBlacklisted(String token) {
-        return Boolean.TRUE.equals(redisTemplate.hasKey(BLACKLIST_ACCESS_PREFIX + token));
+        byte[] digest = digest(token);
+        if (localBlacklist.getIfPresent(encode(digest)) != null)
+            return true;
+
+        BloomFilter filter = bloomFilter;
+        if (bloomFilterEnabled && filter != null && !filter.mightContain(digest))
+            return false;
+
+        // -2 means the key does not exist, -1 that it has no expiry
+        Long ttl = redisTemplate.getExpire(BLACKLIST_ACCESS_PREFIX + encode(digest), TimeUnit.MILLISECONDS);
+        if (ttl == null || ttl == -2)
+            return false;
+        rememberBlacklisted(digest, ttl > 0 ? System.currentTimeMillis() + ttl : Long.MAX_VALUE);
+        return true;
+    }
+
+    /**
+     * Rewrites keys from the old layout, which embedded the full JWT, to digest keys with the same TTL.
+     * Returns the number of keys migrated; safe to run repeatedly.
+     */
+    public long migrateLegacyKeys() {
+        long migrated = 0;
+        for (String prefix : new String[]{BLACKLIST_ACCESS_PREFIX, BLACKLIST_RESET_PREFIX}) {
+            ScanOptions options = ScanOptions.scanOptions().match(prefix + "*").count(1000).build();
+            try (Cursor<String> cursor = redisTemplate.scan(options)) {
+                while (cursor.hasNext()) {
+                    String key = cursor.next();
+                    String suffix = key.substring(prefix.length());
+                    if (!isLegacyToken(suffix))
+                        continue;
+                    // -2 means the key expired since the scan, -1 that it has no expiry
+                    Long ttl = redisTemplate.getExpire(key, TimeUnit.MILLISECONDS);
+                    if (ttl == null || ttl == -2)
+                        continue;
+                    writeMigrated(prefix + tokenDigest(suffix), MARKER_VALUE, ttl);
+                    redisTemplate.delete(key);
+                    migrated++;
+                }
+            }
+        }
+
+        // user_reset_token:<email> used to hold the full reset token; it now holds its digest
+        ScanOptions options = ScanOptions.scanOptions().match(USER_RESET_TOKEN_PREFIX + "*").count(1000).build();
+        try (Cursor<String> cursor = redisTemplate.scan(options)) {
+            while (cursor.hasNext()) {
+                String key = cursor.next();
+                String value = redisTemplate.opsForValue().get(key);
+                Long ttl = redisTemplate.getExpire(key, TimeUnit.MILLISECONDS);
+                if (value == null || !isLegacyToken(value) || ttl == null || ttl == -2)
+                    continue;
+                writeMigrated(key, tokenDigest(value), ttl);
+                migrated++;
+            }
+        }
+        return migrated;
+    }
+
+    // A legacy key without expiry keeps none, so a revoked token never becomes valid again through migration
+    private void writeMigrated(String key, String value, long ttl) {
+        if (ttl > 0)
+            redisTemplate.opsForValue().set(key, value, ttl, TimeUnit.MILLISECONDS);
+        else
+            redisTemplate.opsForValue().set(key, value);
+    }
+
+    // Digests are base64url without padding and never contain the '.' separating JWT segments
+    private static boolean isLegacyToken(String value) {
+        return value.indexOf('.') >= 0;
+    }
+
+    /**
+     * Receives tokens blacklisted on other nodes (including this one) as {@code digest:expiresAt}.
+     */
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String body = new String(message.getBody(), StandardCharsets.UTF_8);
+        int separator = body.lastIndexOf(':');
+        if (separator < 0) {
+            log.warn("Ignoring malformed blacklist event: {}", body);
+            return;
+        }
+        try {
+            byte[] digest = Base64.getUrlDecoder().decode(body.substring(0, separator));
+            long expiresAt = Long.parseLong(body.substring(separator + 1));
+            rememberBlacklisted(digest, expiresAt);
+        } catch (IllegalArgumentException e) {
+            log.warn("Ignoring malformed blacklist event: {}", body);
+        }
+    }
+
+    /**
+     * Rebuilds the Bloom filter from the Redis keyspace. Entries never leave a Bloom filter, so the
+     * rebuild also drops tokens whose blacklist entries have expired.
+     */
+    @Scheduled(fixedDelayString = "${jwt.blacklist.bloom-filter.rebuild-interval:300000}")
+    public void rebuildBloomFilter() {
+        if (!bloomFilterEnabled)
+            return;
+
+        BloomFilter rebuilt = new BloomFilter(bloomExpectedEntries, BLOOM_FALSE_POSITIVE_RATE);
+        // Events arriving while scanning are added to both filters (see rememberBlacklisted)
+        pendingBloomFilter = rebuilt;
+        ScanOptions options = ScanOptions.scanOptions().match(BLACKLIST_ACCESS_PREFIX + "*").count(1000).build();
+        long count = 0;
+        try (Cursor<String> cursor = redisTemplate.scan(options)) {
+            while (cursor.hasNext()) {
+                String suffix = cursor.next().substring(BLACKLIST_ACCESS_PREFIX.length());
+                rebuilt.put(isLegacyToken(suffix) ? digest(suffix) : Base64.getUrlDecoder().decode(suffix));
+                count++;
+            }
+        } catch (Exception e) {
+            pendingBloomFilter = null;
+            log.error("Failed to rebuild access-token blacklist filter, keeping the previous one: {}", e.getMessage());
+            return;
+        }
+        bloomFilter = rebuilt;
+        pendingBloomFilter = null;
+        log.debug("Rebuilt access-token blacklist filter with {} entries", count);
     }
 
-    public String getStoredToken(String key){
-        return redisTemplate.opsForValue().get(key);
+    private void rememberBlacklisted(byte[] digest, long expiresAt) {
+        localBlacklist.put(encode(digest), expiresAt);
+        // Read the pending filter first so an entry is never lost to a concurrent swap
+        BloomFilter pending = pendingBloomFilter;
+        if (pending != null)
+            pending.put(digest);
+        BloomFilter current = bloomFilter;
+        if (current != null)
+            current.put(digest);
+    }
+
+    private static long remainingNanos(long expiresAt) {
+        if (expiresAt == Long.MAX_VALUE)
+            return Long.MAX_VALUE;
+        return TimeUnit.MILLISECONDS.toNanos(Math.max(0, expiresAt - System.currentTimeMillis()));
+    }
+
+    static byte[] digest(String token) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    static String encode(byte[] digest) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(digest);
+    }
+
+    /**
+     * Minimal thread-safe Bloom filter over SHA-256 digests; the digest already provides the
+     * independent hash values, combined by double hashing.
+     */
+    private static final class BloomFilter {
+        private final AtomicLongArray bits;
+        private final long bitCount;
+        private final int hashCount;
+
+        BloomFilter(int expectedEntries, double falsePositiveRate) {
+            long optimalBits = (long) Math.ceil(-expectedEntries * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+            int words = (int) Math.max(1, (optimalBits + 63) / 64);
+            this.bits = new AtomicLongArray(words);
+            this.bitCount = (long) words * 64;
+            this.hashCount = Math.max(1, (int) Math.round((double) optimalBits / expectedEntries * Math.log(2)));
+        }
+
+        void put(byte[] digest) {
+            ByteBuffer buffer = ByteBuffer.wrap(digest);
+            long h1 = buffer.getLong();
+            long h2 = buffer.getLong();
+            for (int i = 0; i < hashCount; i++) {
+                long index = Math.floorMod(h1 + i * h2, bitCount);
+                int word = (int) (index >>> 6);
+                long mask = 1L << index;
+                long current;
+                do {
+                    current = bits.get(word);
+                    if ((current & mask) != 0)
+                        break;
+                } while (!bits.compareAndSet(word, current, current | mask));
+            }
+        }
+
+        boolean mightContain(byte[] digest) {
+            ByteBuffer buffer = ByteBuffer.wrap(digest);
+            long h1 = buffer.getLong();
+            long h2 = buffer.getLong();
+            for (int i = 0; i < hashCount; i++) {
+                long index = Math.floorMod(h1 + i * h2, bitCount);
+                if ((bits.get((int) (index >>> 6)) & (1L << index)) == 0)
+                    return false;
+            }
+            return true;
+        }
     }
 }
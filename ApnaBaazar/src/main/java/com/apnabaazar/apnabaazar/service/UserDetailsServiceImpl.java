@@ -4,23 +4,60 @@ import com.apnabaazar.apnabaazar.config.UserPrincipal;
 import com.apnabaazar.apnabaazar.model.users.User;
 import com.apnabaazar.apnabaazar.repository.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 
 @Service
 public class UserDetailsServiceImpl implements UserDetailsService {
 
+    public static final String USER_PRINCIPAL_CACHE = "userPrincipals";
+
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private SecurityVersionService securityVersionService;
+
     @Override
+    @Cacheable(cacheNames = USER_PRINCIPAL_CACHE, key = "#email")
     public UserDetails loadUserByUsername(String email) throws UsernameNotFoundException {
         User user = userRepository
                 .findByEmail(email)
                 .orElseThrow(() -> new UsernameNotFoundException("User not found"));
         return new UserPrincipal(user);
     }
+
+    /**
+     * Drops the cached principal of a user whose lock, activation or password state changed and bumps
+     * their security version, which revokes stateless access tokens issued before the change.
+     * Inside a transaction both are repeated after commit, so a request racing the
+     * transaction cannot put the pre-commit state back into the cache or into a new token.
+     */
+    public void evictUser(String email) {
+        Cache cache = cacheManager.getCache(USER_PRINCIPAL_CACHE);
+        if (cache != null)
+            cache.evict(email);
+        securityVersionService.bumpVersion(email);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    if (cache != null)
+                        cache.evict(email);
+                    securityVersionService.bumpVersion(email);
+                }
+            });
+        }
+    }
 }
@@ -16,7 +16,9 @@ import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.multipart.MultipartFile;
 
+import java.io.IOException;
 import java.nio.file.AccessDeniedException;
 import java.time.LocalDateTime;
 import java.util.Locale;
@@ -31,6 +33,8 @@ public class UserService {
     private final AddressRepository addressRepository;
     private final PasswordEncoder passwordEncoder;
     private final MessageSource messageSource;
+    private final UserDetailsServiceImpl userDetailsService;
+    private final S3Service s3Service;
 
     public User getUserByEmail(String email) {
         Locale locale = LocaleContextHolder.getLocale();
@@ -42,6 +46,60 @@ public class UserService {
                 });
     }
 
+    /**
+     * Replaces the user's profile image with a single S3 write. The previous object is only deleted when the new
+     * upload landed on a different key, i.e. the file extension changed.
+     */
+    public String uploadProfileImage(String email, MultipartFile file) throws IOException {
+        User user = getUserByEmail(email);
+        String previousKey = user.getProfileImageKey();
+        String key = s3Service.uploadProfileImage(email, file);
+        if (previousKey != null && !previousKey.equals(key)) {
+            s3Service.deleteObject(previousKey);
+            log.info("Previous profile image deleted for user: {}", email);
+        }
+        user.setProfileImageKey(key);
+        user.setProfileImageVersion(user.getProfileImageVersion() + 1);
+        user.setProfileImageProbed(true);
+        userRepository.save(user);
+        return key;
+    }
+
+    public boolean deleteProfileImage(String email) {
+        User user = getUserByEmail(email);
+        resolveLegacyProfileImage(user);
+        if (user.getProfileImageKey() == null) {
+            log.warn("No image found for user: {}", email);
+            return false;
+        }
+        s3Service.deleteObject(user.getProfileImageKey());
+        user.setProfileImageKey(null);
+        user.setProfileImageVersion(user.getProfileImageVersion() + 1);
+        userRepository.save(user);
+        return true;
+    }
+
+    public String getProfileImageUrl(User user, String defaultImageUrl) {
+        resolveLegacyProfileImage(user);
+        return s3Service.getProfileImageUrl(user.getProfileImageKey(), user.getProfileImageVersion(), defaultImageUrl);
+    }
+
+    /**
+     * Records the key of a profile image uploaded before keys were stored. S3 is probed at most once per user;
+     * afterwards the flag short-circuits, whether or not an image was found.
+     */
+    public void resolveLegacyProfileImage(User user) {
+        if (user.isProfileImageProbed())
+            return;
+        String key = s3Service.findLegacyProfileImageKey(user.getEmail());
+        if (key != null) {
+            user.setProfileImageKey(key);
+            user.setProfileImageVersion(user.getProfileImageVersion() + 1);
+        }
+        user.setProfileImageProbed(true);
+        userRepository.save(user);
+    }
+
     public Address getAddressById(String addressId) {
         Locale locale = LocaleContextHolder.getLocale();
         return addressRepository.findById(addressId)
@@ -78,6 +136,7 @@ public class UserService {
         user.setPassword(passwordEncoder.encode(updatePasswordDTO.getNewPassword()));
         user.setPasswordUpdateDate(LocalDateTime.now());
         userRepository.save(user);
+        userDetailsService.evictUser(user.getEmail());
 
         log.info("Password updated successfully for user: {}", user.getEmail());
     }
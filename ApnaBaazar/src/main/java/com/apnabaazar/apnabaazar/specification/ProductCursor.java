@@ -0,0 +1,47 @@
+package com.apnabaazar.apnabaazar.specification;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.springframework.data.domain.Sort;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.Set;
+
+/**
+ * Continuation token for keyset pagination: the sort field and direction of the listing plus the sort value
+ * and id of the last product returned. Clients treat it as opaque.
+ */
+@Getter
+@AllArgsConstructor
+public class ProductCursor {
+
+    // Non-null columns only; a null sort value cannot be sought past
+    public static final Set<String> SORT_FIELDS = Set.of("id", "name", "brand", "description", "createdAt");
+
+    private static final String SEPARATOR = "|";
+
+    private final String sort;
+    private final Sort.Direction direction;
+    private final String lastId;
+    private final Comparable<?> lastValue;
+
+    public String encode() {
+        String raw = sort + SEPARATOR + direction.name() + SEPARATOR + lastId + SEPARATOR + lastValue;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @throws IllegalArgumentException if the token is malformed or was issued for another sort field
+     */
+    public static ProductCursor decode(String token) {
+        String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+        // The value goes last so separators inside it are kept
+        String[] parts = raw.split("\\" + SEPARATOR, 4);
+        if (parts.length != 4 || !SORT_FIELDS.contains(parts[0]))
+            throw new IllegalArgumentException("Malformed cursor");
+        Comparable<?> value = "createdAt".equals(parts[0]) ? LocalDateTime.parse(parts[3]) : parts[3];
+        return new ProductCursor(parts[0], Sort.Direction.valueOf(parts[1]), parts[2], value);
+    }
+}
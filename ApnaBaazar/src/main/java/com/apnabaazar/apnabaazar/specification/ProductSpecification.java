@@ -1,6 +1,7 @@
 package com.apnabaazar.apnabaazar.specification;
 
 import com.apnabaazar.apnabaazar.model.products.Product;
+import jakarta.persistence.criteria.Expression;
 import jakarta.persistence.criteria.Predicate;
 import org.springframework.data.jpa.domain.Specification;
 
@@ -38,12 +39,17 @@ public class ProductSpecification {
         };
     }
 
-    public static Specification<Product> withCustomerFilters(List<String> categoryIds, Map<String, String> filters) {
+    /**
+     * @param categoryPath materialized path of the browsed category; products of it and every descendant match
+     */
+    public static Specification<Product> withCustomerFilters(String categoryPath, Map<String, String> filters) {
         return (root, query, cb) -> {
             List<Predicate> predicates = new ArrayList<>();
 
-            if (categoryIds != null && !categoryIds.isEmpty())
-                predicates.add(root.get("category").get("categoryId").in(categoryIds));
+            // Prefix match on the indexed path replaces an IN list of every descendant id; paths are UUIDs
+            // and slashes only, so they need no LIKE escaping
+            if (categoryPath != null)
+                predicates.add(cb.like(root.get("category").get("path"), categoryPath + "%"));
 
             predicates.add(cb.isTrue(root.get("active")));
 
@@ -62,6 +68,28 @@ public class ProductSpecification {
         };
     }
 
+    /**
+     * Seek predicate for keyset pagination: rows strictly after the cursor in (sort, id) order, so the database
+     * walks the index from the last key instead of skipping an offset.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public static Specification<Product> afterCursor(ProductCursor cursor) {
+        return (root, query, cb) -> {
+            if (cursor == null)
+                return null;
+            boolean ascending = cursor.getDirection().isAscending();
+            Expression<String> id = root.get("id");
+            if ("id".equals(cursor.getSort()))
+                return ascending ? cb.greaterThan(id, cursor.getLastId()) : cb.lessThan(id, cursor.getLastId());
+
+            Expression<Comparable> sortKey = root.get(cursor.getSort());
+            Comparable value = cursor.getLastValue();
+            Predicate beyondValue = ascending ? cb.greaterThan(sortKey, value) : cb.lessThan(sortKey, value);
+            Predicate beyondId = ascending ? cb.greaterThan(id, cursor.getLastId()) : cb.lessThan(id, cursor.getLastId());
+            return cb.or(beyondValue, cb.and(cb.equal(sortKey, value), beyondId));
+        };
+    }
+
     public static Specification<Product> withSimilarityFilters(String productId, String categoryId) {
         return (root, query, cb) -> {
             List<Predicate> predicates = new ArrayList<>();
@@ -0,0 +1,118 @@
+package com.apnabaazar.apnabaazar.service;
+
+import com.apnabaazar.apnabaazar.config.AuditorAwareImpl;
+import com.apnabaazar.apnabaazar.model.categories.CategoryFacet;
+import com.apnabaazar.apnabaazar.repository.CategoryFacetRepository;
+import com.apnabaazar.apnabaazar.repository.ProductRepository;
+import com.apnabaazar.apnabaazar.repository.ProductVariationRepository;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * Runs the facet read path inside a caller's transaction, as the customer filter endpoint does, against an
+ * in-memory database so flush and commit behave as in production.
+ */
+@DataJpaTest(properties = {
+        "spring.config.on-not-found=ignore",
+        "spring.datasource.url=jdbc:h2:mem:facets;MODE=MySQL;NON_KEYWORDS=VALUE,VALUES",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.show-sql=false"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import(AuditorAwareImpl.class)
+class CategoryFacetReadPathTest {
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private CategoryFacetRepository categoryFacetRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private ProductVariationRepository productVariationRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private ThreadPoolTaskExecutor facetExecutor;
+    private CategoryFacetService categoryFacetService;
+    private TransactionTemplate separateTransaction;
+
+    @BeforeEach
+    void setUp() {
+        CategoryTreeService categoryTreeService = mock(CategoryTreeService.class);
+        CategoryTreeSnapshot snapshot = new CategoryTreeSnapshot(1, List.of(
+                new Object[]{"root", "Root", null},
+                new Object[]{"leaf", "Leaf", "root"}));
+        when(categoryTreeService.getSnapshot()).thenReturn(snapshot);
+        when(categoryTreeService.getNode(any())).thenAnswer(inv -> snapshot.getNode(inv.getArgument(0)));
+
+        facetExecutor = mock(ThreadPoolTaskExecutor.class);
+        categoryFacetService = new CategoryFacetService(categoryFacetRepository, productRepository,
+                productVariationRepository, categoryTreeService, facetExecutor);
+
+        separateTransaction = new TransactionTemplate(transactionManager);
+        separateTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    @AfterEach
+    void tearDown() {
+        separateTransaction.executeWithoutResult(status -> categoryFacetRepository.deleteAllInBatch());
+    }
+
+    @Test
+    void missingFacetIsNotInsertedInTheCallersTransaction() {
+        CategoryFacet facet = categoryFacetService.getFacet("leaf");
+
+        // The facet thread commits the first row while the request's transaction is still open
+        separateTransaction.executeWithoutResult(status -> categoryFacetRepository.save(CategoryFacet.builder()
+                .categoryId("leaf")
+                .brands(List.of())
+                .metadataValueCounts(Map.of())
+                .updatedAt(LocalDateTime.now())
+                .build()));
+
+        assertThat(facet.getCategoryId()).isEqualTo("leaf");
+        assertThatCode(() -> entityManager.flush()).doesNotThrowAnyException();
+        verify(facetExecutor).execute(any(Runnable.class));
+    }
+
+    @Test
+    void queuedStorePersistsTheFacet() {
+        categoryFacetService.getFacet("leaf");
+
+        ArgumentCaptor<Runnable> task = ArgumentCaptor.forClass(Runnable.class);
+        verify(facetExecutor).execute(task.capture());
+        task.getValue().run();
+        entityManager.flush();
+        entityManager.clear();
+
+        assertThat(categoryFacetRepository.findById("leaf")).isPresent();
+        assertThat(categoryFacetRepository.findById("root")).isPresent();
+    }
+}
@@ -0,0 +1,80 @@
+package com.apnabaazar.apnabaazar.service;
+
+import com.apnabaazar.apnabaazar.model.categories.CategoryFacet;
+import com.apnabaazar.apnabaazar.repository.CategoryFacetRepository;
+import com.apnabaazar.apnabaazar.repository.ProductRepository;
+import com.apnabaazar.apnabaazar.repository.ProductVariationRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.*;
+
+class CategoryFacetServiceTest {
+
+    private CategoryFacetRepository categoryFacetRepository;
+    private ThreadPoolTaskExecutor facetExecutor;
+    private CategoryFacetService categoryFacetService;
+
+    @BeforeEach
+    void setUp() {
+        categoryFacetRepository = mock(CategoryFacetRepository.class);
+        ProductRepository productRepository = mock(ProductRepository.class);
+        ProductVariationRepository productVariationRepository = mock(ProductVariationRepository.class);
+        CategoryTreeService categoryTreeService = mock(CategoryTreeService.class);
+
+        // root -> leaf
+        CategoryTreeSnapshot snapshot = new CategoryTreeSnapshot(1, List.of(
+                new Object[]{"root", "Root", null},
+                new Object[]{"leaf", "Leaf", "root"}));
+        when(categoryTreeService.getSnapshot()).thenReturn(snapshot);
+        when(categoryTreeService.getNode(any())).thenAnswer(inv -> snapshot.getNode(inv.getArgument(0)));
+
+        facetExecutor = mock(ThreadPoolTaskExecutor.class);
+        categoryFacetService = new CategoryFacetService(categoryFacetRepository, productRepository,
+                productVariationRepository, categoryTreeService, facetExecutor);
+    }
+
+    @Test
+    void refreshRecomputesStaleFacetsChildrenFirst() {
+        LocalDateTime cutoff = LocalDateTime.now();
+        when(categoryFacetRepository.findCategoryIdsUpdatedBefore(cutoff)).thenReturn(List.of("root", "leaf"));
+        when(categoryFacetRepository.save(any(CategoryFacet.class))).thenAnswer(inv -> inv.getArgument(0));
+
+        assertThat(categoryFacetService.refreshOlderThan(cutoff)).isEqualTo(2);
+
+        InOrder inOrder = inOrder(categoryFacetRepository);
+        inOrder.verify(categoryFacetRepository).save(argThat(facet -> facet.getCategoryId().equals("leaf")));
+        inOrder.verify(categoryFacetRepository).save(argThat(facet -> facet.getCategoryId().equals("root")));
+    }
+
+    @Test
+    void refreshSkipsWhenNothingIsStale() {
+        when(categoryFacetRepository.findCategoryIdsUpdatedBefore(any())).thenReturn(List.of());
+
+        assertThat(categoryFacetService.refreshOlderThan(LocalDateTime.now())).isZero();
+        verify(categoryFacetRepository, never()).save(any(CategoryFacet.class));
+    }
+
+    @Test
+    void refreshRunsOnTheFacetThread() {
+        when(categoryFacetRepository.findCategoryIdsUpdatedBefore(any())).thenReturn(List.of("leaf"));
+        when(categoryFacetRepository.save(any(CategoryFacet.class))).thenAnswer(inv -> inv.getArgument(0));
+
+        categoryFacetService.refreshStale();
+        verifyNoInteractions(categoryFacetRepository);
+
+        ArgumentCaptor<Runnable> task = ArgumentCaptor.forClass(Runnable.class);
+        verify(facetExecutor).execute(task.capture());
+        task.getValue().run();
+        verify(categoryFacetRepository).save(argThat(facet -> facet.getCategoryId().equals("leaf")));
+    }
+}
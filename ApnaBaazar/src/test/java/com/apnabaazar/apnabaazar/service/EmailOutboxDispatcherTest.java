@@ -0,0 +1,138 @@
+package com.apnabaazar.apnabaazar.service;
+
+import com.apnabaazar.apnabaazar.enums.EmailStatus;
+import com.apnabaazar.apnabaazar.model.email.EmailOutbox;
+import com.apnabaazar.apnabaazar.repository.EmailOutboxRepository;
+import com.icegreen.greenmail.junit5.GreenMailExtension;
+import com.icegreen.greenmail.util.ServerSetupTest;
+import jakarta.mail.Transport;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.*;
+
+/**
+ * Runs the outbox dispatcher and SMTP pool against an in-process GreenMail server.
+ */
+class EmailOutboxDispatcherTest {
+
+    @RegisterExtension
+    static GreenMailExtension greenMail = new GreenMailExtension(ServerSetupTest.SMTP.dynamicPort());
+
+    private EmailOutboxRepository emailOutboxRepository;
+    private SmtpConnectionPool smtpConnectionPool;
+    private ThreadPoolTaskExecutor mailExecutor;
+    private ThreadPoolTaskScheduler taskScheduler;
+    private EmailOutboxDispatcher dispatcher;
+
+    @BeforeEach
+    void setUp() {
+        JavaMailSenderImpl mailSender = new JavaMailSenderImpl();
+        mailSender.setHost("localhost");
+        mailSender.setPort(greenMail.getSmtp().getPort());
+
+        smtpConnectionPool = new SmtpConnectionPool(mailSender);
+        ReflectionTestUtils.setField(smtpConnectionPool, "idleTimeoutMillis", 60_000L);
+
+        mailExecutor = new ThreadPoolTaskExecutor();
+        mailExecutor.setCorePoolSize(2);
+        mailExecutor.setMaxPoolSize(2);
+        mailExecutor.setQueueCapacity(10);
+        mailExecutor.initialize();
+
+        taskScheduler = new ThreadPoolTaskScheduler();
+        taskScheduler.initialize();
+
+        TransactionTemplate transactionTemplate = mock(TransactionTemplate.class);
+        when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+                invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+
+        emailOutboxRepository = mock(EmailOutboxRepository.class);
+        dispatcher = new EmailOutboxDispatcher(emailOutboxRepository, mailSender, mailExecutor, transactionTemplate,
+                smtpConnectionPool, taskScheduler);
+        ReflectionTestUtils.setField(dispatcher, "batchSize", 50);
+        ReflectionTestUtils.setField(dispatcher, "maxAttempts", 8);
+        ReflectionTestUtils.setField(dispatcher, "backoffMillis", 30_000L);
+        ReflectionTestUtils.setField(dispatcher, "maxBackoffMillis", 3_600_000L);
+        ReflectionTestUtils.setField(dispatcher, "leaseMillis", 300_000L);
+        ReflectionTestUtils.setField(dispatcher, "coalesceWindowMillis", 200L);
+    }
+
+    @AfterEach
+    void tearDown() {
+        smtpConnectionPool.shutdown();
+        mailExecutor.shutdown();
+        taskScheduler.shutdown();
+    }
+
+    @Test
+    void consecutiveBatchesReuseOneConnection() throws Exception {
+        List<EmailOutbox> first = emails(2);
+        dispatcher.sendBatch(first);
+        Transport afterFirst = smtpConnectionPool.borrow();
+        smtpConnectionPool.release(afterFirst);
+
+        List<EmailOutbox> second = emails(2);
+        dispatcher.sendBatch(second);
+        Transport afterSecond = smtpConnectionPool.borrow();
+
+        assertThat(afterSecond).isSameAs(afterFirst);
+        assertThat(afterSecond.isConnected()).isTrue();
+        smtpConnectionPool.release(afterSecond);
+
+        assertThat(greenMail.getReceivedMessages()).hasSize(4);
+        assertThat(first).allMatch(email -> email.getStatus() == EmailStatus.SENT);
+        assertThat(second).allMatch(email -> email.getStatus() == EmailStatus.SENT);
+    }
+
+    @Test
+    void idleConnectionsAreClosed() throws Exception {
+        Transport transport = smtpConnectionPool.borrow();
+        smtpConnectionPool.release(transport);
+
+        ReflectionTestUtils.setField(smtpConnectionPool, "idleTimeoutMillis", -1L);
+        smtpConnectionPool.closeIdleConnections();
+
+        assertThat(transport.isConnected()).isFalse();
+        assertThat(smtpConnectionPool.borrow()).isNotSameAs(transport);
+    }
+
+    @Test
+    void dispatchRequestsWithinTheWindowShareOneRun() {
+        List<EmailOutbox> pending = emails(3);
+        when(emailOutboxRepository.lockDueBatch(any(), anyInt())).thenReturn(pending, List.of());
+
+        for (int i = 0; i < 10; i++)
+            dispatcher.requestDispatch();
+
+        assertThat(greenMail.waitForIncomingEmail(5_000, 3)).isTrue();
+        verify(emailOutboxRepository, timeout(5_000)).saveAll(pending);
+        // One dispatch run: the batch, then the empty claim that ends it
+        verify(emailOutboxRepository, after(500).times(2)).lockDueBatch(any(), anyInt());
+        assertThat(greenMail.getReceivedMessages()).hasSize(3);
+    }
+
+    private static List<EmailOutbox> emails(int count) {
+        List<EmailOutbox> emails = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            EmailOutbox email = new EmailOutbox("user" + i + "@example.com", "Subject " + i, "<p>Body " + i + "</p>");
+            email.setAttempts(1);
+            emails.add(email);
+        }
+        return emails;
+    }
+}
@@ -0,0 +1,52 @@
+package com.apnabaazar.apnabaazar.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.support.ResourceBundleMessageSource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Locale;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class EmailTemplateEngineTest {
+
+    private EmailTemplateEngine engine;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        ResourceBundleMessageSource messageSource = new ResourceBundleMessageSource();
+        messageSource.setBasename("messages");
+        messageSource.setDefaultEncoding("UTF-8");
+        messageSource.setFallbackToSystemLocale(false);
+        engine = new EmailTemplateEngine(messageSource);
+        engine.loadTemplates();
+    }
+
+    @Test
+    void rendersFromTheBundleOfTheRequestLanguage() {
+        String french = engine.render("account-deactivated", Locale.FRENCH, Map.of());
+        assertThat(french).contains("Compte désactivé");
+        assertThat(engine.render("account-deactivated", Locale.CANADA_FRENCH, Map.of())).isEqualTo(french);
+        assertThat(engine.render("account-deactivated", Locale.GERMAN, Map.of()))
+                .isEqualTo(engine.render("account-deactivated", Locale.ENGLISH, Map.of()));
+    }
+
+    @Test
+    void arbitraryRequestLocalesDoNotGrowTheCompiledSet() {
+        Map<Locale, ?> before = (Map<Locale, ?>) ReflectionTestUtils.getField(engine, "compiledByLocale");
+
+        for (int i = 0; i < 1000; i++)
+            engine.render("verification", Locale.of("x" + i, "Y" + i), Map.of("link", "https://example.com"));
+
+        assertThat(ReflectionTestUtils.getField(engine, "compiledByLocale")).isSameAs(before);
+        assertThat(before.keySet()).containsExactlyInAnyOrder(Locale.ENGLISH, Locale.FRENCH, Locale.of("hi"));
+    }
+
+    @Test
+    void escapesVariables() {
+        String rendered = engine.render("verification", Locale.ENGLISH, Map.of("link", "\"><script>"));
+        assertThat(rendered).contains("&quot;&gt;&lt;script&gt;").doesNotContain("<script>");
+    }
+}
@@ -0,0 +1,78 @@
+package com.apnabaazar.apnabaazar.service;
+
+import com.apnabaazar.apnabaazar.enums.ImageDerivative;
+import com.apnabaazar.apnabaazar.repository.ProductVariationRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class ImageDerivativeServiceTest {
+
+    private S3Service s3Service;
+    private ProductVariationRepository productVariationRepository;
+    private ImageDerivativeService imageDerivativeService;
+
+    @BeforeEach
+    void setUp() {
+        s3Service = mock(S3Service.class);
+        productVariationRepository = mock(ProductVariationRepository.class);
+        when(s3Service.getDerivedImageKey(anyString(), any())).thenAnswer(invocation ->
+                invocation.<ImageDerivative>getArgument(1).getPath() + "/" + invocation.getArgument(0));
+        imageDerivativeService = new ImageDerivativeService(s3Service, mock(ThreadPoolTaskExecutor.class), productVariationRepository);
+        ReflectionTestUtils.setField(imageDerivativeService, "jpegQuality", 0.8f);
+        ReflectionTestUtils.setField(imageDerivativeService, "maxPixels", 40_000_000L);
+    }
+
+    @Test
+    void writesAndRecordsDerivatives() throws IOException {
+        when(s3Service.openObject("image.png")).thenReturn(new ByteArrayInputStream(png(1200, 900)));
+
+        assertThat(imageDerivativeService.generateDerivatives("variation", "image.png")).isTrue();
+
+        verify(s3Service, times(ImageDerivative.values().length)).putObject(anyString(), any(byte[].class), eq("image/jpeg"));
+        verify(productVariationRepository).markImageDerived("variation", "image.png");
+    }
+
+    @Test
+    void rejectsImagesAboveThePixelLimitBeforeDecoding() throws IOException {
+        // A tiny file whose header declares 100000 x 100000 pixels
+        when(s3Service.openObject("bomb.png")).thenReturn(new ByteArrayInputStream(withDimensions(png(1, 1), 100_000, 100_000)));
+
+        assertThat(imageDerivativeService.generateDerivatives("variation", "bomb.png")).isFalse();
+
+        verify(s3Service, never()).putObject(anyString(), any(byte[].class), anyString());
+        verify(productVariationRepository, never()).markImageDerived(anyString(), anyString());
+    }
+
+    @Test
+    void skipsUnsupportedFormats() {
+        when(s3Service.openObject("notes.png")).thenReturn(new ByteArrayInputStream("not an image".getBytes()));
+
+        assertThat(imageDerivativeService.generateDerivatives("variation", "notes.png")).isFalse();
+        verify(productVariationRepository, never()).markImageDerived(anyString(), anyString());
+    }
+
+    private static byte[] png(int width, int height) throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        ImageIO.write(new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB), "png", output);
+        return output.toByteArray();
+    }
+
+    // IHDR width and height follow the 8-byte signature, the chunk length and the chunk type
+    private static byte[] withDimensions(byte[] png, int width, int height) {
+        ByteBuffer.wrap(png).putInt(16, width).putInt(20, height);
+        return png;
+    }
+}
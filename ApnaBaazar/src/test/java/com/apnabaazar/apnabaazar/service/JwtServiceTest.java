@@ -0,0 +1,50 @@
+package com.apnabaazar.apnabaazar.service;
+
+import com.apnabaazar.apnabaazar.exceptions.InvalidTokenException;
+import com.apnabaazar.apnabaazar.repository.AuthTokenRepository;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Keys;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+
+class JwtServiceTest {
+
+    private static final String SECRET = "c2VjcmV0LWtleS1mb3ItdGVzdGluZy1vbmx5LW11c3QtYmUtMzItYnl0ZXMtbG9uZw==";
+
+    private JwtService jwtService;
+
+    @BeforeEach
+    void setUp() {
+        jwtService = new JwtService(mock(AuthTokenRepository.class), mock(SecurityVersionService.class));
+        jwtService.setSecretKey(SECRET);
+        jwtService.setAccessTokenExpirationTime(60_000);
+        jwtService.init();
+    }
+
+    @Test
+    void keyAndParserAreBuiltOnceAtStartup() {
+        String token = jwtService.generateAccessToken("user@example.com", "session");
+
+        // Not valid Base64: any per-call key decoding would fail from here on
+        jwtService.setSecretKey("not*base64");
+
+        assertThat(jwtService.extractUsername(token)).isEqualTo("user@example.com");
+        assertThat(jwtService.extractIssuer(jwtService.generateAccessToken("other@example.com", "s2")))
+                .isEqualTo("s2");
+    }
+
+    @Test
+    void rejectsTokenSignedWithAnotherKey() {
+        String foreign = Jwts.builder()
+                .setSubject("user@example.com")
+                .signWith(Keys.hmacShaKeyFor(Decoders.BASE64.decode(SECRET.replace('c', 'd'))))
+                .compact();
+
+        assertThatThrownBy(() -> jwtService.extractAllClaims(foreign)).isInstanceOf(InvalidTokenException.class);
+    }
+}
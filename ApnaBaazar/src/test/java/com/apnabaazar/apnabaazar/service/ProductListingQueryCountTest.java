@@ -0,0 +1,134 @@
+package com.apnabaazar.apnabaazar.service;
+
+import com.apnabaazar.apnabaazar.config.AuditorAwareImpl;
+import com.apnabaazar.apnabaazar.model.categories.Category;
+import com.apnabaazar.apnabaazar.model.dto.product_dto.ProductResponseDTO;
+import com.apnabaazar.apnabaazar.model.products.Product;
+import com.apnabaazar.apnabaazar.model.products.ProductVariation;
+import com.apnabaazar.apnabaazar.model.users.Seller;
+import com.apnabaazar.apnabaazar.repository.ProductRepository;
+import com.apnabaazar.apnabaazar.specification.ProductSpecification;
+import jakarta.persistence.EntityManager;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.MessageSource;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Counts the statements behind one product listing page, from the page query to the mapped response, using
+ * Hibernate statistics against an in-memory database.
+ */
+@DataJpaTest(properties = {
+        "spring.config.on-not-found=ignore",
+        "spring.datasource.url=jdbc:h2:mem:listing;MODE=MySQL;NON_KEYWORDS=VALUE,VALUES",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "spring.jpa.show-sql=false"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import(AuditorAwareImpl.class)
+class ProductListingQueryCountTest {
+
+    // page query (with seller and category), sellers' roles, variations, secondary image keys, derived image keys
+    private static final long STATEMENTS_PER_PAGE = 5;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    private ProductService productService;
+    private Statistics statistics;
+    private final List<Seller> sellers = new ArrayList<>();
+    private Category category;
+
+    @BeforeEach
+    void setUp() {
+        productService = new ProductService(productRepository, mock(CategoryMetadataResolver.class),
+                mock(S3Service.class), mock(MessageSource.class));
+        statistics = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+
+        for (int i = 0; i < 3; i++) {
+            Seller seller = new Seller();
+            seller.setEmail("seller" + i + "@example.com");
+            seller.setFirstName("Sam");
+            seller.setLastName("Seller");
+            seller.setPassword("secret");
+            seller.setGstin("22AAAAA000" + i + "A1Z5");
+            seller.setCompanyContact("999999999" + i);
+            seller.setCompanyName("Acme " + i);
+            entityManager.persist(seller);
+            sellers.add(seller);
+        }
+
+        category = new Category();
+        category.setName("Phones");
+        entityManager.persist(category);
+    }
+
+    /**
+     * Products are spread over several sellers, so any per-row or per-seller lazy load would show up as extra
+     * statements on the larger page.
+     */
+    @Test
+    void listingPageRunsAFixedNumberOfStatements() {
+        createProducts(20);
+
+        assertThat(statementsForPage(5)).isEqualTo(STATEMENTS_PER_PAGE);
+        assertThat(statementsForPage(20)).isEqualTo(STATEMENTS_PER_PAGE);
+    }
+
+    private long statementsForPage(int size) {
+        entityManager.clear();
+        statistics.clear();
+
+        List<ProductResponseDTO> page = productService.buildProductResponseDTOs(PageRequest.of(0, size, Sort.by("name")),
+                ProductSpecification.withFilters(Map.of(), null), productRepository);
+
+        assertThat(page).hasSize(size);
+        assertThat(page).allSatisfy(product -> assertThat(product.getProductVariation()).hasSize(2));
+        return statistics.getPrepareStatementCount();
+    }
+
+    private void createProducts(int count) {
+        for (int i = 0; i < count; i++) {
+            Product product = new Product();
+            product.setSeller(sellers.get(i % sellers.size()));
+            product.setCategory(category);
+            product.setName("Phone " + i);
+            product.setBrand("Brand");
+            product.setDescription("Description");
+            product.setActive(true);
+            entityManager.persist(product);
+            for (int j = 0; j < 2; j++) {
+                ProductVariation variation = new ProductVariation();
+                variation.setProduct(product);
+                variation.setPrice(100.0 + j);
+                variation.setQuantityAvailable(5);
+                variation.setMetadata(Map.of("color", "c" + j));
+                variation.setPrimaryImageName("products/" + i + "/" + j + ".png");
+                variation.getSecondaryImageKeys().add("products/" + i + "/" + j + "_1.png");
+                entityManager.persist(variation);
+                product.getVariations().add(variation);
+            }
+        }
+        entityManager.flush();
+    }
+}